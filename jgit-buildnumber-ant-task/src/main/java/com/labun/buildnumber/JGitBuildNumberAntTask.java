@@ -22,8 +22,21 @@ public class JGitBuildNumberAntTask implements Parameters {
     private String dateFormatTimeZone;
     private String countCommitsSinceInclusive;
     private String countCommitsSinceExclusive;
+    private String countCommitsSinceDate;
+    private Integer maxCommitsToCount;
     private String countCommitsInPath;
+    private Boolean firstParentOnly;
     private String buildNumberFormat;
+    private Boolean extractSubmodules;
+    private Integer timeBudgetMillis;
+    private Boolean packedGitMMAP;
+    private Long packedGitLimit;
+    private Integer deltaBaseCacheLimit;
+    private File outputPropertiesFile;
+    private File outputJsonFile;
+    private String outputJavaClassName;
+    private File outputJavaDirectory;
+    private Boolean outputIgnoreBuildDate;
     private File repositoryDirectory;
     private Boolean runOnlyAtExecutionRoot;
     private Boolean skip;
@@ -40,7 +53,11 @@ public class JGitBuildNumberAntTask implements Parameters {
             return;
         }
 
-        Map<String, String> properties = new BuildNumberExtractor(this, msg -> project.log(msg)).extract();
+        Map<String, String> properties;
+        try (BuildNumberExtractor extractor = new BuildNumberExtractor(this, msg -> project.log(msg))) {
+            properties = extractor.extract();
+        }
+        new OutputFileWriter(this, msg -> project.log(msg)).write(properties);
 
         for (Map.Entry<String, String> property : properties.entrySet())
             project.setProperty(namespace + "." + property.getKey(), property.getValue());
@@ -0,0 +1,221 @@
+package com.labun.buildnumber;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import javax.script.ScriptEngine;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/** Computes the properties which every commit in a range (e.g. `v1.0..HEAD`) would have had as HEAD, particularly `commitsCount`, `nearestTag`,
+ *  `describe`, and `buildNumber`. Useful for backfilling artifact metadata or generating release notes.
+ *  <p>
+ *  Instead of one walk per commit, all commits are visited in one topologically ordered pass (parents before children), and the values are
+ *  computed incrementally: a commit counts one more than its first parent, plus, for merge commits, the commits reachable from the other parents
+ *  but not from the first one (unless `firstParentOnly` is set). The nearest tag of a commit is its reachable tag with the fewest commits since, 
+ *  propagated from the parents (only from the first parent if `firstParentOnly` is set)
+ *  (the same as for `git describe`, except for commits with identical commit times, where `git describe` depends on the walk order). For merged histories, `nearestTag` may therefore differ from {@link BuildNumberExtractor}, which takes the first tag
+ *  in walk order. If a commit has multiple tags, `describe` uses the first tag name in alphabetical order.
+ *  <p>
+ *  Working tree dependent properties are not applicable: `dirty` is always empty, `buildDate` is the start of the extraction.
+ *  Parameters `countCommitsSince...`, `countCommitsInPath` and `maxCommitsToCount` are not supported. */
+public class BuildNumberBatchExtractor implements AutoCloseable {
+
+    Parameters params;
+    Logger logger;
+    BuildNumberExtractor extractor;
+
+    /** commit with the state of the incremental computation */
+    static class BatchCommit extends RevCommit {
+        /** number of commits reachable from this one, including itself */
+        int count;
+        /** reachable tagged commit with the highest count (i.e. the fewest commits since), or `null` */
+        BatchCommit tagCommit;
+
+        BatchCommit(AnyObjectId id) {
+            super(id);
+        }
+    }
+
+    static class BatchWalk extends RevWalk {
+        BatchWalk(ObjectReader reader) {
+            super(reader);
+        }
+
+        @Override
+        protected RevCommit createCommit(AnyObjectId id) {
+            return new BatchCommit(id);
+        }
+    }
+
+    /** @param  params    input parameters
+     * @param  logger    logger to log info messages
+     * @throws Exception if git repo not found or cannot be read */
+    public BuildNumberBatchExtractor(Parameters params, Logger logger) throws Exception {
+        this.params = params;
+        this.logger = logger;
+        if (params.getCountCommitsSinceInclusive() != null || params.getCountCommitsSinceExclusive() != null || params.getCountCommitsSinceDate() != null
+            || params.getCountCommitsInPath() != null || params.getMaxCommitsToCount() != null)
+            throw new IllegalArgumentException(
+                "Parameters 'countCommitsSince...', 'countCommitsInPath' and 'maxCommitsToCount' are not supported for commit ranges");
+        extractor = new BuildNumberExtractor(params, logger, BuildNumberExtractor.defaultExecutor, false);
+    }
+
+    @Override
+    public void close() {
+        extractor.close();
+    }
+
+    /** @param range    `<from>..<to>` (commits reachable from `to` but not from `from`; `to` defaults to HEAD) or `<to>` (all commits reachable
+     *                  from `to`); `from` and `to` can be anything JGit resolves (tag, branch, SHA-1, HEAD~3 etc.)
+     * @param consumer receives the properties (see {@link BuildNumberExtractor#propertyNames}) of each commit in the range, parents before children,
+     *                 as soon as they are computed */
+    public void extract(String range, Consumer<Map<String, String>> consumer) throws Exception {
+        long t = System.currentTimeMillis();
+
+        int dots = range.indexOf("..");
+        String from = (dots >= 0) ? range.substring(0, dots) : null;
+        String to = (dots >= 0) ? range.substring(dots + 2) : range;
+        if (to.isEmpty()) to = Constants.HEAD;
+        ObjectId toId = resolve(to);
+        ObjectId fromId = (from != null) ? resolve(from) : null;
+
+        String branch = readBranch(to);
+        Map<String, SortedSet<String>> tagMap = extractor.loadTagsMap();
+        ScriptEngine jsEngine = (params.getBuildNumberFormat() != null) ? extractor.jsEngineFuture.get() : null;
+
+        DateFormat dfGitDate = new SimpleDateFormat(params.getGitDateFormat());
+        DateFormat dfBuildDate = new SimpleDateFormat(params.getBuildDateFormat());
+        if (params.getDateFormatTimeZone() != null) {
+            dfGitDate.setTimeZone(TimeZone.getTimeZone(params.getDateFormatTimeZone()));
+            dfBuildDate.setTimeZone(TimeZone.getTimeZone(params.getDateFormatTimeZone()));
+        }
+        String buildDateMillis = "" + extractor.startTime;
+        String buildDate = dfBuildDate.format(new Date(extractor.startTime));
+
+        ObjectReader reader = extractor.reader;
+        Set<ObjectId> inRange = loadRange(toId, fromId);
+        extractor.logVerbose("number of commits in range '" + range + "': " + inRange.size());
+
+        int emitted = 0;
+        try (BatchWalk walk = new BatchWalk(reader); RevWalk mergeWalk = new RevWalk(reader); RevWalk bodyWalk = new RevWalk(reader)) {
+            walk.setRetainBody(false); // bodies are only needed for commits in range
+            walk.sort(RevSort.TOPO, true);
+            walk.sort(RevSort.REVERSE, true);
+            walk.markStart(walk.parseCommit(toId));
+            mergeWalk.setRetainBody(false);
+
+            for (RevCommit revCommit : walk) {
+                BatchCommit commit = (BatchCommit) revCommit;
+                commit.count = countCommits(commit, mergeWalk, params.getFirstParentOnly());
+                commit.tagCommit = tagMap.containsKey(commit.name()) ? commit : nearestParentTag(commit, params.getFirstParentOnly());
+                if (!inRange.contains(commit)) continue;
+
+                RevCommit body = bodyWalk.parseCommit(commit);
+                BatchCommit tagCommit = commit.tagCommit;
+                String revision = commit.name();
+                String shortRevision = BuildNumberExtractor.abbreviateSha1(revision, params.getShortRevisionLength());
+                String tag = extractor.readTag(tagMap, revision);
+                String commitsCount = Integer.toString(commit.count);
+                String abbreviated = reader.abbreviate(commit).name();
+                String describe = (tagCommit == null) ? abbreviated
+                    : tagMap.get(tagCommit.name()).first() + "-" + (commit.count - tagCommit.count) + "-g" + abbreviated;
+
+                Map<String, String> res = new TreeMap<>();
+                res.put("revision", revision);
+                res.put("shortRevision", shortRevision);
+                res.put("dirty", "");
+                res.put("branch", branch);
+                res.put("tag", tag);
+                res.put("nearestTag", (tagCommit == null) ? "" : String.join(";", tagMap.get(tagCommit.name())));
+                res.put("parent", BuildNumberExtractor.readParent(body));
+                res.put("shortParent", BuildNumberExtractor.readShortParent(body, params.getShortRevisionLength()));
+                res.put("commitsCount", commitsCount);
+                res.put("commitsCountSinceNearestTag", (tagCommit == null) ? "" : "" + (commit.count - tagCommit.count));
+                res.put("authorDate", dfGitDate.format(body.getAuthorIdent().getWhen()));
+                res.put("commitDate", dfGitDate.format(body.getCommitterIdent().getWhen()));
+                res.put("describe", describe);
+                res.put("buildDateMillis", buildDateMillis);
+                res.put("buildDate", buildDate);
+                res.put("buildNumber", extractor.defaultBuildNumber(tag, branch, commitsCount, shortRevision, ""));
+                if (params.getBuildNumberFormat() != null) res.put("buildNumber", extractor.formatBuildNumberWithJS(jsEngine, res));
+
+                consumer.accept(res);
+                emitted++;
+            }
+        }
+        extractor.logVerbose("extracting properties for " + emitted + " commits: " + (System.currentTimeMillis() - t) + " ms");
+    }
+
+    private ObjectId resolve(String revision) throws Exception {
+        ObjectId id = extractor.repo.resolve(revision + "^{commit}");
+        if (id == null) throw new IllegalArgumentException("Cannot resolve commit '" + revision + "'");
+        return id;
+    }
+
+    /** @return branch name if the range ends with a branch (or HEAD on a branch), empty string otherwise */
+    private String readBranch(String to) throws Exception {
+        if (Constants.HEAD.equals(to)) {
+            String branch = extractor.repo.getBranch();
+            return (branch == null || branch.equals(extractor.getHeadSha1())) ? "" : branch;
+        }
+        return (extractor.repo.exactRef(Constants.R_HEADS + to) != null) ? to : "";
+    }
+
+    /** @return ids of commits reachable from `toId`, but not from `fromId` */
+    private Set<ObjectId> loadRange(ObjectId toId, ObjectId fromId) throws Exception {
+        Set<ObjectId> res = new HashSet<>();
+        try (RevWalk walk = new RevWalk(extractor.reader)) {
+            walk.setRetainBody(false);
+            walk.markStart(walk.parseCommit(toId));
+            if (fromId != null) walk.markUninteresting(walk.parseCommit(fromId));
+            for (RevCommit commit : walk)
+                res.add(commit.copy());
+        }
+        return res;
+    }
+
+    /** Parents are already computed (topological order). */
+    private static int countCommits(BatchCommit commit, RevWalk mergeWalk, boolean firstParentOnly) throws Exception {
+        RevCommit[] parents = commit.getParents();
+        if (parents.length == 0) return 1;
+
+        int res = ((BatchCommit) parents[0]).count + 1;
+        if (parents.length > 1 && !firstParentOnly) {
+            // merge: add commits reachable from other parents, but not from the first one
+            mergeWalk.reset();
+            mergeWalk.markUninteresting(mergeWalk.parseCommit(parents[0]));
+            for (int i = 1; i < parents.length; i++)
+                mergeWalk.markStart(mergeWalk.parseCommit(parents[i]));
+            for (RevCommit c = mergeWalk.next(); c != null; c = mergeWalk.next())
+                res++;
+        }
+        return res;
+    }
+
+    /** @return the tagged commit with the highest count among the parents' nearest tags, or `null` */
+    private static BatchCommit nearestParentTag(BatchCommit commit, boolean firstParentOnly) {
+        BatchCommit res = null;
+        RevCommit[] parents = commit.getParents();
+        int n = firstParentOnly ? Math.min(1, parents.length) : parents.length;
+        for (int i = 0; i < n; i++) {
+            BatchCommit tagCommit = ((BatchCommit) parents[i]).tagCommit;
+            if (tagCommit != null && (res == null || tagCommit.count > res.count)) res = tagCommit;
+        }
+        return res;
+    }
+}
@@ -3,6 +3,7 @@ package com.labun.buildnumber;
 import java.io.File;
 import java.io.IOException;
 import java.text.DateFormat;
+import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Date;
@@ -13,8 +14,17 @@ import java.util.SortedSet;
 import java.util.TimeZone;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -26,12 +36,17 @@ import org.eclipse.jgit.api.Status;
 import org.eclipse.jgit.errors.RevWalkException;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.ProgressMonitor;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.RepositoryBuilder;
-import org.eclipse.jgit.revplot.PlotWalk;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
 import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
 import org.eclipse.jgit.treewalk.filter.TreeFilter;
@@ -39,8 +54,14 @@ import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import lombok.Data;
 import lombok.Getter;
 
-/** Extracts Git metadata and creates build number. See {@link #propertyNames}. */
-public class BuildNumberExtractor {
+/** Extracts Git metadata and creates build number. See {@link #propertyNames}.
+ *  <p>
+ *  The extraction phases run concurrently on an executor: Git status (working tree I/O), loading tags followed by the history walk,
+ *  `git describe` (object database), submodules (see {@link SubmoduleExtractor}), and initialization of the JS engine. So the overall time is about that of the longest phase.
+ *  Each phase reading Git objects uses its own {@link ObjectReader}, since readers are not thread-safe.
+ *  <p>
+ *  Holds the Git repo open until {@link #close()} is called. */
+public class BuildNumberExtractor implements AutoCloseable {
 
     /** See documentation in README.md */
     static final List<String> propertyNames = Arrays.asList("revision", "shortRevision", "dirty", "branch", "tag", "nearestTag", "parent", "shortParent",
@@ -48,11 +69,31 @@ public class BuildNumberExtractor {
 
     private static final String EMPTY_STRING = "";
 
+    /** with `countCommitsSinceDate`, the walk stops after this number of consecutive commits older than the date (like `SLOP` in C Git) */
+    static final int CLOCK_SKEW_SLOP = 5;
+
+    /** JGit's WindowCache is global (one per JVM); remembers the last installed settings to avoid flushing the cache needlessly */
+    private static List<Object> installedWindowCacheSettings;
+
+    /** last complete values of history dependent properties per Git dir (each value from the last extraction whose phase computing it was 
+     *  not cut short); used as fallback if the time budget is exceeded */
+    private static final Map<File, CachedHistory> lastCompleteHistory = new ConcurrentHashMap<>();
+
+    /** default executor for the extraction phases; threads are created on demand and reused by subsequent extractions in the same JVM */
+    static final ExecutorService defaultExecutor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "jgit-buildnumber");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     final long startTime = System.currentTimeMillis();
 
     Parameters params;
     Logger logger;
 
+    /** runs the extraction phases concurrently */
+    Executor executor;
+
     /** Holds "future" of Script Engine, which gets initialized in parallel with reading Git repo, to reduce overall execution time.<br>
      *  Is only initialized if params.buildNumberFormat is not null. */
     Future<ScriptEngine> jsEngineFuture;
@@ -60,10 +101,21 @@ public class BuildNumberExtractor {
     File gitDir;
     Git git;
     Repository repo;
+    /** for reading in the calling thread; the phases running in parallel use their own readers */
+    ObjectReader reader;
 
     ObjectId headObjectId;
     private @Getter String headSha1;
-    private @Getter boolean gitStatusDirty;
+    /** Git status, read in parallel with the other phases (already started in the constructor) */
+    private CompletableFuture<Boolean> gitStatusDirtyFuture;
+
+    /** number of phases running on the {@link #executor}; the repo is closed when the last one ends after {@link #close()} */
+    private int runningPhases;
+    private volatile boolean closed;
+
+    TimeBudget timeBudget;
+    /** `true` if the time budget was exceeded and some properties have fallback values; see {@link Parameters#getTimeBudgetMillis()} */
+    volatile @Getter boolean partialResult;
 
     @Data
     static class TagInfo {
@@ -75,6 +127,127 @@ public class BuildNumberExtractor {
 
     /** mutable holder for the nearest tag info */
     private TagInfo nearestTagInfo;
+    /** `true` if the history walk was cut short by the time budget */
+    private volatile boolean walkCancelled;
+
+    @Data
+    static class CachedHistory {
+        /** HEAD and parameters the values were extracted for */
+        private final List<Object> key;
+        /** commitsCount, nearestTag, commitsCountSinceNearestTag, describe (only complete values) */
+        private final Map<String, String> values;
+    }
+
+    /** Deadline for the extraction phases, which check it cooperatively. Whether a phase was actually cut short is recorded by the phase 
+     *  (e.g. {@link PhaseMonitor}), since the deadline can pass after a phase has finished. */
+    static class TimeBudget {
+        /** absolute time in millis; Long.MAX_VALUE if there is no budget */
+        final long deadline;
+        /** sticky: once exceeded (or the extractor is closed), all subsequent phases get cancelled */
+        volatile boolean exceeded;
+
+        TimeBudget(long startTime, Integer budgetMillis) {
+            deadline = (budgetMillis != null) ? startTime + budgetMillis : Long.MAX_VALUE;
+        }
+
+        boolean isExceeded() {
+            if (!exceeded && System.currentTimeMillis() > deadline) exceeded = true;
+            return exceeded;
+        }
+    }
+
+    /** Cancels a JGit operation (e.g. Git status) as soon as the time budget is exceeded, and records whether it did. */
+    static class PhaseMonitor implements ProgressMonitor {
+        final TimeBudget timeBudget;
+        /** `true` if the operation has been told to stop, i.e. its result is incomplete */
+        volatile boolean cancelled;
+
+        PhaseMonitor(TimeBudget timeBudget) {
+            this.timeBudget = timeBudget;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            if (timeBudget.isExceeded()) cancelled = true;
+            return cancelled;
+        }
+
+        @Override
+        public void start(int totalTasks) {}
+
+        @Override
+        public void beginTask(String title, int totalWork) {}
+
+        @Override
+        public void update(int completed) {}
+
+        @Override
+        public void endTask() {}
+    }
+
+    /** task of the extraction pipeline */
+    interface Task<T> {
+        T call() throws Exception;
+    }
+
+    /** thrown from the commit walk if the time budget is exceeded */
+    static class TimeBudgetExceededException extends RuntimeException {
+        TimeBudgetExceededException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /** Ends the commit walk as soon as the time budget is exceeded. Filters are applied while the commits are read, i.e. also before
+     *  {@link RevSort#TOPO} has read the whole history (a check in the loop consuming the walk would only run afterwards). */
+    static class TimeBudgetRevFilter extends RevFilter {
+        final TimeBudget timeBudget;
+
+        TimeBudgetRevFilter(TimeBudget timeBudget) {
+            this.timeBudget = timeBudget;
+        }
+
+        @Override
+        public boolean include(RevWalk walker, RevCommit commit) {
+            if (timeBudget.isExceeded()) throw new TimeBudgetExceededException();
+            return true;
+        }
+
+        @Override
+        public RevFilter clone() {
+            return this; // stateless
+        }
+
+        @Override
+        public boolean requiresCommitBody() {
+            return false;
+        }
+    }
+
+    /** Like {@link TimeBudgetRevFilter}, for walks with a tree filter: JGit applies the tree filter first, so the RevFilter doesn't see 
+     *  commits not affecting the path, which can be most of them. */
+    static class TimeBudgetTreeFilter extends TreeFilter {
+        final TimeBudget timeBudget;
+
+        TimeBudgetTreeFilter(TimeBudget timeBudget) {
+            this.timeBudget = timeBudget;
+        }
+
+        @Override
+        public boolean include(TreeWalk walker) {
+            if (timeBudget.isExceeded()) throw new TimeBudgetExceededException();
+            return true;
+        }
+
+        @Override
+        public boolean shouldBeRecursive() {
+            return false;
+        }
+
+        @Override
+        public TreeFilter clone() {
+            return this; // stateless
+        }
+    }
 
     void log(String msg) {
         logger.log(msg);
@@ -90,8 +263,20 @@ public class BuildNumberExtractor {
      * @param  logger    logger to log info messages
      * @throws Exception if git repo not found or cannot be read */
     public BuildNumberExtractor(Parameters params, Logger logger) throws Exception {
+        this(params, logger, defaultExecutor);
+    }
+
+    /** @param executor executor for the extraction phases, which are run concurrently; use `Runnable::run` to run them sequentially in the
+     *                 calling thread. Default: shared pool of daemon threads. */
+    public BuildNumberExtractor(Parameters params, Logger logger, Executor executor) throws Exception {
+        this(params, logger, executor, true);
+    }
+
+    /** @param readStatus `false` if the working tree status is not needed (e.g. for {@link BuildNumberBatchExtractor}) */
+    BuildNumberExtractor(Parameters params, Logger logger, Executor executor, boolean readStatus) throws Exception {
         this.params = params;
         this.logger = logger;
+        this.executor = executor;
 
         long t = System.currentTimeMillis();
 
@@ -100,7 +285,11 @@ public class BuildNumberExtractor {
 
         logVerbose("java: " + System.getProperty("java.version"));
 
-        jsEngineFuture = (params.getBuildNumberFormat() != null) ? CompletableFuture.supplyAsync(() -> getJsEngine()) : null;
+        timeBudget = new TimeBudget(startTime, params.getTimeBudgetMillis());
+
+        jsEngineFuture = (params.getBuildNumberFormat() != null) ? CompletableFuture.supplyAsync(() -> getJsEngine(), executor) : null;
+
+        configureWindowCache();
 
         File repoDirectory = params.getRepositoryDirectory();
         if (!(repoDirectory.exists() && repoDirectory.isDirectory()))
@@ -115,6 +304,17 @@ public class BuildNumberExtractor {
         if (gitDir == null) throw new IllegalArgumentException("Git directory '.git' not found (check parameter 'repositoryDirectory')");
         git = Git.open(gitDir);
         repo = git.getRepository();
+        try {
+            init(readStatus);
+        } catch (Exception e) {
+            close();
+            throw e;
+        }
+        logVerbose("initializing Git repo, get base data: " + (System.currentTimeMillis() - t) + " ms");
+    }
+
+    private void init(boolean readStatus) throws Exception {
+        reader = repo.newObjectReader();
 
         Ref headRef = repo.exactRef(Constants.HEAD);
         if (headRef == null) throw new IllegalArgumentException("Cannot read current revision (HEAD) from repository: " + repo);
@@ -123,10 +323,21 @@ public class BuildNumberExtractor {
         if (headObjectId == null) throw new IllegalArgumentException("Git repository is empty (perhaps just initialized with `git init`): " + repo);
         headSha1 = headObjectId.name();
 
-        // long t = System.currentTimeMillis();
-        Status gitStatus = git.status().call();
-        gitStatusDirty = !gitStatus.isClean();
-        // System.out.println("dirty: " + gitStatusDirty + " (" + (System.currentTimeMillis() - t) + " ms)");
+        gitStatusDirtyFuture = readStatus ? async(this::readStatus) : CompletableFuture.completedFuture(false);
+    }
+
+    /** @return `true` if the working tree is dirty */
+    private boolean readStatus() throws Exception {
+        long t = System.currentTimeMillis();
+        PhaseMonitor monitor = new PhaseMonitor(timeBudget);
+        Status gitStatus = git.status().setProgressMonitor(monitor).call();
+        boolean gitStatusDirty = !gitStatus.isClean();
+        if (monitor.cancelled) { // status is incomplete
+            partialResult = true;
+            gitStatusDirty = true;
+            log("WARNING: time budget of " + params.getTimeBudgetMillis() + " ms exceeded while reading Git status; assuming dirty working tree");
+        }
+        logVerbose("[parallel thread] reading Git status: " + (System.currentTimeMillis() - t) + " ms");
 
         //@formatter:off
         logVerbose("repo state: " + "headSha1=" + headSha1 + ", gitStatusDirty=" + gitStatusDirty);
@@ -143,100 +354,249 @@ public class BuildNumberExtractor {
                 + "    untracked folders: " + gitStatus.getUntrackedFolders() + ",\n"
                 + "    ignoredNotInIndex: " + gitStatus.getIgnoredNotInIndex());
         }
-        logVerbose("initializing Git repo, get base data: " + (System.currentTimeMillis() - t) + " ms");
         //@formatter:on
+        return gitStatusDirty;
     }
 
+    /** Waits for the Git status, if not read yet. */
+    public boolean isGitStatusDirty() throws Exception {
+        return await(gitStatusDirtyFuture);
+    }
+
+    /** Runs the task on the {@link #executor}; checked exceptions are wrapped in a {@link CompletionException}. Tasks starting after 
+     *  {@link #close()} are cancelled. */
+    <T> CompletableFuture<T> async(Task<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            synchronized (this) {
+                if (closed) throw new CancellationException("extractor closed");
+                runningPhases++;
+            }
+            try {
+                return task.call();
+            } catch (RuntimeException e) {
+                logIfClosed(e);
+                throw e;
+            } catch (Exception e) {
+                logIfClosed(e);
+                throw new CompletionException(e);
+            } finally {
+                phaseEnded();
+            }
+        }, executor);
+    }
+
+    /** after {@link #close()}, nobody waits for the result of the phase */
+    private void logIfClosed(Exception e) {
+        if (closed) log("phase failed after the extractor was closed: " + e);
+    }
+
+    private synchronized void phaseEnded() {
+        if (--runningPhases == 0 && closed) {
+            git.close();
+            logVerbose("Git repo closed after the last running phase ended");
+        }
+    }
+
+    /** Waits for the result and rethrows the exception thrown by the task, if any. */
+    static <T> T await(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private static Exception unwrap(ExecutionException e) {
+        Throwable cause = (e.getCause() instanceof CompletionException && e.getCause().getCause() != null) ? e.getCause().getCause() : e.getCause();
+        return (cause instanceof Exception) ? (Exception) cause : e;
+    }
+
+    /** Applies `packedGitMMAP`, `packedGitLimit`, `deltaBaseCacheLimit` parameters, if any of them is set. */
+    private void configureWindowCache() {
+        List<Object> settings = Arrays.asList(params.getPackedGitMMAP(), params.getPackedGitLimit(), params.getDeltaBaseCacheLimit());
+        if (settings.stream().allMatch(v -> v == null)) return;
+
+        synchronized (BuildNumberExtractor.class) {
+            if (settings.equals(installedWindowCacheSettings)) return;
+            WindowCacheConfig cfg = new WindowCacheConfig();
+            if (params.getPackedGitMMAP() != null) cfg.setPackedGitMMAP(params.getPackedGitMMAP());
+            if (params.getPackedGitLimit() != null) cfg.setPackedGitLimit(params.getPackedGitLimit());
+            if (params.getDeltaBaseCacheLimit() != null) cfg.setDeltaBaseCacheLimit(params.getDeltaBaseCacheLimit());
+            cfg.install();
+            installedWindowCacheSettings = settings;
+            logVerbose("installed JGit WindowCacheConfig: packedGitMMAP=" + cfg.isPackedGitMMAP() + ", packedGitLimit=" + cfg.getPackedGitLimit()
+                + ", deltaBaseCacheLimit=" + cfg.getDeltaBaseCacheLimit());
+        }
+    }
+
+    /** Releases the Git repo (pack file handles, cached pack data). Phases still running (e.g. after an exception in {@link #extract()}, 
+     *  or `describe` after the time budget was exceeded) are cancelled cooperatively; the repo is closed when the last of them has ended, 
+     *  so that they don't reopen pack files of a closed repo. */
     @Override
-    protected void finalize() throws Throwable {
-        git.close(); // also closes the `repo`
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        if (reader != null) reader.close();
+        if (runningPhases == 0) {
+            git.close(); // also closes the `repo`
+        } else {
+            timeBudget.exceeded = true; // stops the walks and the Git status
+            logVerbose("closing Git repo after " + runningPhases + " running phase(s)");
+        }
     }
 
     /** @return Map propertyName - propertyValue. See {@link #propertyNames}. */
     public Map<String, String> extract() throws Exception {
         long t = System.currentTimeMillis();
 
-        try (RevWalk revWalk = new PlotWalk(repo)) {
-            String branch = readCurrentBranch(headSha1);
+        // values precomputed by the Git hooks (if installed and up to date) replace the phases reading the history
+        Map<String, String> precomputed = new GitHookResults(this).read();
+
+        // start the phases reading the object database; Git status and JS engine are already running
+        CompletableFuture<Map<String, SortedSet<String>>> tagMapFuture = (precomputed != null) ? null : async(this::loadTagsMap);
+        CompletableFuture<Map<String, String>> historyFuture = (precomputed != null) ? CompletableFuture.completedFuture(precomputed)
+            : tagMapFuture.thenCompose(tagMap -> async(() -> readHistory(tagMap)));
+        CompletableFuture<String> describeFuture = (precomputed != null) ? CompletableFuture.completedFuture(precomputed.get("describe"))
+            : timeBudget.isExceeded() ? CompletableFuture.completedFuture(null)
+            : params.getFirstParentOnly() ? tagMapFuture.thenCompose(tagMap -> async(() -> readDescribeFirstParent(tagMap)))
+            : async(() -> readDescribe(git));
+        CompletableFuture<Map<String, String>> submodulesFuture = params.getExtractSubmodules() ? new SubmoduleExtractor(this).extract() : null;
+
+        // meanwhile, read the remaining (cheap) properties in the calling thread
+        String branch = readCurrentBranch(headSha1);
+
+        RevCommit headCommit;
+        try (RevWalk revWalk = new RevWalk(reader)) {
+            headCommit = revWalk.parseCommit(headObjectId);
+        }
 
-            Map<String, SortedSet<String>> tagMap = loadTagsMap();
-            String tag = readTag(tagMap, headSha1);
+        String parent = readParent(headCommit);
+        String shortParent = readShortParent(headCommit, params.getShortRevisionLength());
+
+        DateFormat dfGitDate = new SimpleDateFormat(params.getGitDateFormat()); // default timezone, default locale
+        if (params.getDateFormatTimeZone() != null) dfGitDate.setTimeZone(TimeZone.getTimeZone(params.getDateFormatTimeZone()));
+        String authorDate = dfGitDate.format(headCommit.getAuthorIdent().getWhen());
+        String commitDate = dfGitDate.format(headCommit.getCommitterIdent().getWhen());
+
+        String buildDateMillis = "" + startTime; 
+        SimpleDateFormat dfBuildDate = new SimpleDateFormat(params.getBuildDateFormat());
+        if (params.getDateFormatTimeZone() != null) dfBuildDate.setTimeZone(TimeZone.getTimeZone(params.getDateFormatTimeZone()));
+        String buildDate = dfBuildDate.format(new Date(startTime));
+
+        String revision = headSha1;
+        String shortRevision = abbreviateSha1(headSha1, params.getShortRevisionLength());
+
+        // join the phases
+        String tag = (precomputed != null) ? precomputed.get("tag") : readTag(await(tagMapFuture), headSha1);
+        Map<String, String> history = new HashMap<>(await(historyFuture));
+        String describe = awaitDescribe(describeFuture); // null: not finished
+        history.put("describe", (describe != null) ? describe : shortRevision);
+        if (precomputed == null) history = applyTimeBudgetFallback(history, !walkCancelled, describe != null, await(tagMapFuture).hashCode());
+        String dirty = isGitStatusDirty() ? params.getDirtyValue() : "";
+
+        String commitsCountAsString = history.get("commitsCount");
+
+        String buildNumber = defaultBuildNumber(tag, branch, commitsCountAsString, shortRevision, dirty);
+
+        Map<String, String> res = new TreeMap<>();
+        res.put("revision", revision);
+        res.put("shortRevision", shortRevision);
+        res.put("dirty", dirty);
+        res.put("branch", branch);
+        res.put("tag", tag);
+        res.put("nearestTag", history.get("nearestTag"));
+        res.put("parent", parent);
+        res.put("shortParent", shortParent);
+        res.put("commitsCount", commitsCountAsString);
+        res.put("commitsCountSinceNearestTag", history.get("commitsCountSinceNearestTag"));
+        res.put("authorDate", authorDate);
+        res.put("commitDate", commitDate);
+        res.put("describe", history.get("describe"));
+        res.put("buildDateMillis", buildDateMillis);
+        res.put("buildDate", buildDate);
+        res.put("buildNumber", buildNumber);
+
+        logVerbose("extracting properties for buildNumber: " + (System.currentTimeMillis() - t) + " ms");
+        t = System.currentTimeMillis();
+
+        if (params.getBuildNumberFormat() != null) {
+            ScriptEngine jsEngine = jsEngineFuture.get();
+            logVerbose("waiting for initialization of JS engine: " + (System.currentTimeMillis() - t) + " ms");
+            t = System.currentTimeMillis();
 
-            RevCommit headCommit = revWalk.parseCommit(headObjectId);
+            String jsBuildNumber = formatBuildNumberWithJS(jsEngine, res);
+            res.put("buildNumber", jsBuildNumber); // overwrites default buildNumber
+            logVerbose("formatting buildNumber with JS: " + (System.currentTimeMillis() - t) + " ms");
+        }
 
-            String parent = readParent(headCommit);
-            String shortParent = readShortParent(headCommit, params.getShortRevisionLength());
+        if (submodulesFuture != null) res.putAll(await(submodulesFuture)); // not exposed to JS (names are no JS identifiers)
 
-            DateFormat dfGitDate = new SimpleDateFormat(params.getGitDateFormat()); // default timezone, default locale
-            if (params.getDateFormatTimeZone() != null) dfGitDate.setTimeZone(TimeZone.getTimeZone(params.getDateFormatTimeZone()));
-            String authorDate = dfGitDate.format(headCommit.getAuthorIdent().getWhen());
-            String commitDate = dfGitDate.format(headCommit.getCommitterIdent().getWhen());
+        logVerbose("all extracted properties: " + res);
+        log("BUILDNUMBER: " + res.get("buildNumber"));
 
-            int commitsCount = countCommits(revWalk, tagMap, headCommit, params.getCountCommitsSinceInclusive(), params.getCountCommitsSinceExclusive(),
-                params.getCountCommitsInPath());
-            String nearestTag = nearestTagInfo == null ? EMPTY_STRING : String.join(";", nearestTagInfo.tagNames);
-            String commitsCountSinceNearestTag = nearestTagInfo == null ? EMPTY_STRING : "" + nearestTagInfo.commitsCountSince;
-
-            // don't use `headCommit`, `revWalk` from here on!
-
-            String describe = readDescribe(git);
-
-            String buildDateMillis = "" + startTime; 
-            SimpleDateFormat dfBuildDate = new SimpleDateFormat(params.getBuildDateFormat());
-            if (params.getDateFormatTimeZone() != null) dfBuildDate.setTimeZone(TimeZone.getTimeZone(params.getDateFormatTimeZone()));
-            String buildDate = dfBuildDate.format(new Date(startTime));
-
-            String revision = headSha1;
-            String shortRevision = abbreviateSha1(headSha1, params.getShortRevisionLength());
-            String dirty = gitStatusDirty ? params.getDirtyValue() : "";
-            String commitsCountAsString = Integer.toString(commitsCount);
-
-            String buildNumber = defaultBuildNumber(tag, branch, commitsCountAsString, shortRevision, dirty);
-
-            Map<String, String> res = new TreeMap<>();
-            res.put("revision", revision);
-            res.put("shortRevision", shortRevision);
-            res.put("dirty", dirty);
-            res.put("branch", branch);
-            res.put("tag", tag);
-            res.put("nearestTag", nearestTag);
-            res.put("parent", parent);
-            res.put("shortParent", shortParent);
-            res.put("commitsCount", commitsCountAsString);
-            res.put("commitsCountSinceNearestTag", commitsCountSinceNearestTag);
-            res.put("authorDate", authorDate);
-            res.put("commitDate", commitDate);
-            res.put("describe", describe);
-            res.put("buildDateMillis", buildDateMillis);
-            res.put("buildDate", buildDate);
-            res.put("buildNumber", buildNumber);
-
-            logVerbose("extracting properties for buildNumber: " + (System.currentTimeMillis() - t) + " ms");
-            t = System.currentTimeMillis();
+        // ensure all properties are set
+        for (String property : propertyNames)
+            if (res.get(property) == null) throw new RuntimeException("Property '" + property + "' is not set");
 
-            if (params.getBuildNumberFormat() != null) {
-                ScriptEngine jsEngine = jsEngineFuture.get();
-                logVerbose("waiting for initialization of JS engine: " + (System.currentTimeMillis() - t) + " ms");
-                t = System.currentTimeMillis();
-
-                String jsBuildNumber = formatBuildNumberWithJS(jsEngine, res);
-                res.put("buildNumber", jsBuildNumber); // overwrites default buildNumber
-                logVerbose("formatting buildNumber with JS: " + (System.currentTimeMillis() - t) + " ms");
-            }
+        return res;
+    }
 
-            logVerbose("all extracted properties: " + res);
-            log("BUILDNUMBER: " + res.get("buildNumber"));
+    /** Walks the history with an own reader (runs in parallel with other phases).
+     * 
+     * @return commitsCount, nearestTag, commitsCountSinceNearestTag */
+    private Map<String, String> readHistory(Map<String, SortedSet<String>> tagMap) throws Exception {
+        long t = System.currentTimeMillis();
+        try (ObjectReader walkReader = repo.newObjectReader(); RevWalk revWalk = new RevWalk(walkReader)) {
+            if (params.getFirstParentOnly()) revWalk.setFirstParent(true); // linear chain, no sorting needed
+            else if (params.getCountCommitsSinceDate() == null && params.getMaxCommitsToCount() == null)
+                revWalk.sort(RevSort.TOPO, true); // same order as PlotWalk ("History" view of Eclipse), without loading refs for plotting
+            // otherwise commit date order (topological sorting would read the whole history before the first commit is returned)
 
-            // ensure all properties are set
-            for (String property : propertyNames)
-                if (res.get(property) == null) throw new RuntimeException("Property '" + property + "' is not set");
+            RevCommit headCommit = revWalk.parseCommit(headObjectId);
+            int commitsCount = countCommits(revWalk, tagMap, headCommit, params.getCountCommitsSinceInclusive(), params.getCountCommitsSinceExclusive(),
+                params.getCountCommitsInPath());
 
+            Map<String, String> res = new HashMap<>();
+            res.put("commitsCount", Integer.toString(commitsCount));
+            res.put("nearestTag", nearestTagInfo == null ? EMPTY_STRING : String.join(";", nearestTagInfo.tagNames));
+            res.put("commitsCountSinceNearestTag", nearestTagInfo == null ? EMPTY_STRING : "" + nearestTagInfo.commitsCountSince);
+            logVerbose("[parallel thread] walking history: " + (System.currentTimeMillis() - t) + " ms");
             return res;
         }
+    }
 
+    /** Remembers the history dependent values of the phases which finished (history walk, describe). For the phases cut short by the time 
+     *  budget, returns the last complete values for the same HEAD, tags and parameters, if available, or the partial values (e.g. 
+     *  `commitsCount` = -1, `describe` = short SHA-1) unchanged. */
+    private Map<String, String> applyTimeBudgetFallback(Map<String, String> history, boolean walkComplete, boolean describeComplete, int tagsHash) {
+        List<Object> key = Arrays.asList(headSha1, tagsHash, params.getShortRevisionLength(), params.getCountCommitsSinceInclusive(),
+            params.getCountCommitsSinceExclusive(), params.getCountCommitsSinceDate(), params.getMaxCommitsToCount(), params.getCountCommitsInPath(),
+            params.getFirstParentOnly());
+
+        Map<String, String> complete = new HashMap<>();
+        if (walkComplete) for (String name : Arrays.asList("commitsCount", "nearestTag", "commitsCountSinceNearestTag"))
+            complete.put(name, history.get(name));
+        if (describeComplete) complete.put("describe", history.get("describe"));
+
+        CachedHistory cached = lastCompleteHistory.get(gitDir);
+        Map<String, String> values = (cached != null && cached.key.equals(key)) ? new HashMap<>(cached.values) : new HashMap<>();
+        values.putAll(complete);
+        if (!complete.isEmpty()) lastCompleteHistory.put(gitDir, new CachedHistory(key, values));
+        if (walkComplete && describeComplete) return history;
+
+        partialResult = true;
+        Map<String, String> res = new HashMap<>(history);
+        res.putAll(values);
+        Map<String, String> fallback = new TreeMap<>(values);
+        fallback.keySet().removeAll(complete.keySet());
+        Map<String, String> partial = new TreeMap<>(history);
+        partial.keySet().removeAll(values.keySet());
+        log("WARNING: time budget of " + params.getTimeBudgetMillis() + " ms exceeded; using values of the last complete extraction: " + fallback
+            + ", partial values: " + partial);
+        return res;
     }
 
-    private static String abbreviateSha1(String sha1, int length) {
+    static String abbreviateSha1(String sha1, int length) {
         return (sha1 != null && sha1.length() > length) ? sha1.substring(0, length) : sha1;
     }
 
@@ -253,38 +613,94 @@ public class BuildNumberExtractor {
         return branch;
     }
 
-    private String readTag(Map<String, SortedSet<String>> tagMap, String sha1) {
+    String readTag(Map<String, SortedSet<String>> tagMap, String sha1) {
         SortedSet<String> tags = tagMap.get(sha1);
         if (tags == null) return EMPTY_STRING;
         return String.join(";", tags);
     }
 
-    private static String readParent(RevCommit commit) {
+    static String readParent(RevCommit commit) {
         if (commit == null) return EMPTY_STRING;
         RevCommit[] parents = commit.getParents();
         if (parents == null || parents.length == 0) return EMPTY_STRING;
         return Stream.of(parents).map(p -> p.getId().name()/*SHA-1*/).collect(Collectors.joining(";"));
     }
 
-    private static String readShortParent(RevCommit commit, int length) {
+    static String readShortParent(RevCommit commit, int length) {
         if (commit == null) return EMPTY_STRING;
         RevCommit[] parents = commit.getParents();
         if (parents == null || parents.length == 0) return EMPTY_STRING;
         return Stream.of(parents).map(p -> abbreviateSha1(p.getId().name()/*SHA-1*/, length)).collect(Collectors.joining(";"));
     }
 
-    private static String readDescribe(Git git) throws Exception {
+    /** @return `null` if the time budget is exceeded */
+    private String awaitDescribe(CompletableFuture<String> future) throws Exception {
+        if (params.getTimeBudgetMillis() == null) return await(future);
+        if (timeBudget.isExceeded() && !future.isDone()) return null;
+
+        // JGit's DescribeCommand cannot be cancelled (neither by interrupting it), therefore only stop waiting for it;
+        // it keeps running in background, and close() leaves the repo open until it has ended
+        try {
+            return future.get(Math.max(0, timeBudget.deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeBudget.exceeded = true;
+            future.whenComplete((describe, ex) -> {
+                if (ex != null) log("describe failed after the time budget was exceeded: " + ex);
+            });
+            return null;
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    static String readDescribe(Git git) throws Exception {
         String describe = git.describe().setLong(true).setTags(true).setAlways(true).call();
         return (describe != null) ? describe : EMPTY_STRING; // defensive (describe.setAlways(true) should return not null value)
     }
 
+    private String readDescribeFirstParent(Map<String, SortedSet<String>> tagMap) throws Exception {
+        try (ObjectReader describeReader = repo.newObjectReader()) {
+            return readDescribeFirstParent(describeReader, headObjectId, tagMap, timeBudget);
+        }
+    }
+
+    /** Equivalent of `git describe --long --tags --always --first-parent` (not supported by JGit's DescribeCommand): follows first parents 
+     *  up to the first tagged commit. If the commit has multiple tags, the first tag name in alphabetical order is used.
+     * 
+     * @return `null` if the time budget is exceeded */
+    static String readDescribeFirstParent(ObjectReader reader, ObjectId target, Map<String, SortedSet<String>> tagMap, TimeBudget timeBudget)
+        throws Exception {
+        String abbreviated = reader.abbreviate(target).name();
+        try (RevWalk walk = new RevWalk(reader)) {
+            walk.setRetainBody(false);
+            walk.setFirstParent(true);
+            walk.markStart(walk.parseCommit(target));
+            int depth = 0;
+            for (RevCommit commit : walk) {
+                if (timeBudget.isExceeded()) return null;
+                SortedSet<String> tagNames = tagMap.get(commit.name());
+                if (tagNames != null) return tagNames.first() + "-" + depth + "-g" + abbreviated;
+                depth++;
+            }
+        } catch (RevWalkException ex) {
+            // shallow clone: no tag found in the available history
+        }
+        return abbreviated;
+    }
+
     /** @return Map sha1 - tag names */
-    private Map<String, SortedSet<String>> loadTagsMap() {
+    Map<String, SortedSet<String>> loadTagsMap() {
+        Map<String, SortedSet<String>> res = loadTagsMap(repo);
+        logVerbose("number of tags: " + res.values().stream().mapToInt(SortedSet::size).sum());
+        return res;
+    }
+
+    /** @return Map sha1 - tag names */
+    static Map<String, SortedSet<String>> loadTagsMap(Repository repo) {
         Map<String, Ref> refMap = repo.getTags(); // key: short tag name ("v1.0"), value: ref with full tag name ("refs/tags/v1.0")
-        logVerbose("number of tags: " + refMap.size());
         Map<String, SortedSet<String>> res = new HashMap<>(refMap.size());
         for (Map.Entry<String, Ref> entry : refMap.entrySet()) {
-            String sha1 = extractPeeledSha1(entry.getValue());
+            String sha1 = extractPeeledSha1(repo, entry.getValue());
             res.computeIfAbsent(sha1, k -> new TreeSet<>()).add(entry.getKey());
         }
         return res;
@@ -292,7 +708,7 @@ public class BuildNumberExtractor {
 
     /** @param tagRef tag (annotated or lightweight)
      * @return        SHA-1 corresponding to the tag */
-    private String extractPeeledSha1(Ref tagRef) {
+    private static String extractPeeledSha1(Repository repo, Ref tagRef) {
         Ref peeled = repo.peel(tagRef);
         if (peeled.getPeeledObjectId() != null)
             return peeled.getPeeledObjectId().name(); // annotated tag
@@ -305,44 +721,70 @@ public class BuildNumberExtractor {
         String countCommitsSinceExclusive, String countCommitsInPath) throws Exception {
 
         nearestTagInfo = null;
+        walkCancelled = false;
         try {
             // walk.reset(); // only needed if iterator has been accessed before
             if (countCommitsInPath != null) {
-                walk.setTreeFilter(AndTreeFilter.create(PathFilter.create(countCommitsInPath), TreeFilter.ANY_DIFF));
+                walk.setTreeFilter(
+                    AndTreeFilter.create(new TreeFilter[] { new TimeBudgetTreeFilter(timeBudget), PathFilter.create(countCommitsInPath), TreeFilter.ANY_DIFF }));
             }
+            walk.setRevFilter(new TimeBudgetRevFilter(timeBudget));
             walk.setRetainBody(false);
             walk.markStart(headCommit);
+
+            // the "inclusive" version wins, if both are specified
+            boolean inclusive = countCommitsSinceInclusive != null;
+            String ancestor = inclusive ? countCommitsSinceInclusive : countCommitsSinceExclusive;
+            String ancestorSha1 = (ancestor != null) ? getSha1(ancestor) : null;
+            long sinceTime = (params.getCountCommitsSinceDate() != null) ? parseCountCommitsSinceDate() : Long.MIN_VALUE;
+            Integer maxCommits = params.getMaxCommitsToCount();
+
             int res = 0;
-            if (countCommitsSinceInclusive != null) {
-                String ancestorSha1 = getSha1(countCommitsSinceInclusive);
-                for (RevCommit commit : walk) {
-                    String sha1 = commit.getId().getName();
-                    if (nearestTagInfo == null) nearestTagInfo = tryExtractTagInfo(tagMap, sha1, res);
-                    res += 1;
-                    if (sha1.startsWith(ancestorSha1)) return res;
-                }
-                logAndThrow("commit '" + countCommitsSinceInclusive + "' not found (parameter 'countCommitsSinceInclusive')", countCommitsInPath);
-            } else if (countCommitsSinceExclusive != null) {
-                String ancestorSha1 = getSha1(countCommitsSinceExclusive);
-                for (RevCommit commit : walk) {
-                    String sha1 = commit.getId().getName();
-                    if (nearestTagInfo == null) nearestTagInfo = tryExtractTagInfo(tagMap, sha1, res);
-                    if (sha1.startsWith(ancestorSha1)) return res;
-                    res += 1;
-                }
-                logAndThrow("commit '" + countCommitsSinceExclusive + "' not found (parameter 'countCommitsSinceExclusive')", countCommitsInPath);
-            } else {
-                for (RevCommit commit : walk) {
-                    String sha1 = commit.getId().getName();
-                    if (nearestTagInfo == null) nearestTagInfo = tryExtractTagInfo(tagMap, sha1, res);
-                    res += 1;
+            int olderInARow = 0;
+            boolean olderFound = false;
+            for (RevCommit commit : walk) {
+                if (commit.getCommitTime() * 1000L < sinceTime) {
+                    // not counted; ancestors may still be newer due to clock skew, therefore stop only after some older commits in a row
+                    olderFound = true;
+                    if (++olderInARow >= CLOCK_SKEW_SLOP) return res;
+                    continue;
                 }
+                olderInARow = 0;
+
+                String sha1 = commit.getId().getName();
+                if (nearestTagInfo == null) nearestTagInfo = tryExtractTagInfo(tagMap, sha1, res);
+                boolean isAncestor = ancestorSha1 != null && sha1.startsWith(ancestorSha1);
+                if (isAncestor && !inclusive) return res;
+                res += 1;
+                if (isAncestor) return res;
+                if (maxCommits != null && res >= maxCommits) return res;
+            }
+            if (ancestorSha1 != null && !olderFound) { // (the ancestor may be older than `countCommitsSinceDate`)
+                String param = inclusive ? "countCommitsSinceInclusive" : "countCommitsSinceExclusive";
+                logAndThrow("commit '" + ancestor + "' not found (parameter '" + param + "')", countCommitsInPath);
             }
             return res;
         } catch (RevWalkException ex) {
             // ignore exception thrown by JGit when walking shallow clone, return -1 to indicate shallow
             return -1;
+        } catch (TimeBudgetExceededException ex) {
+            walkCancelled = true;
+            return -1; // nearestTagInfo (if already found) is still valid
+        }
+    }
+
+    /** @return `countCommitsSinceDate` parameter in millis */
+    long parseCountCommitsSinceDate() {
+        String date = params.getCountCommitsSinceDate().trim();
+        for (String pattern : Arrays.asList("yyyy-MM-dd'T'HH:mm:ss", "yyyy-MM-dd HH:mm:ss", "yyyy-MM-dd")) {
+            SimpleDateFormat df = new SimpleDateFormat(pattern);
+            df.setLenient(false);
+            if (params.getDateFormatTimeZone() != null) df.setTimeZone(TimeZone.getTimeZone(params.getDateFormatTimeZone()));
+            ParsePosition pos = new ParsePosition(0);
+            Date res = df.parse(date, pos);
+            if (res != null && pos.getIndex() == date.length()) return res.getTime();
         }
+        throw new IllegalArgumentException("Invalid date (parameter 'countCommitsSinceDate'): " + date);
     }
 
     private TagInfo tryExtractTagInfo(Map<String, SortedSet<String>> tagMap, String sha1, int commitNo) {
@@ -367,10 +809,10 @@ public class BuildNumberExtractor {
     private String getSha1(String tagOrSha1) throws Exception {
         Ref ref = repo.exactRef(Constants.R_TAGS + tagOrSha1);
         if (ref == null) return tagOrSha1; // SHA-1
-        return extractPeeledSha1(ref); // tag
+        return extractPeeledSha1(repo, ref); // tag
     }
 
-    private String formatBuildNumberWithJS(ScriptEngine jsEngine, Map<String, String> bnProperties) throws Exception {
+    String formatBuildNumberWithJS(ScriptEngine jsEngine, Map<String, String> bnProperties) throws Exception {
         if (jsEngine == null) throw new IllegalStateException("JS engine is null");
 
         for (Map.Entry<String, String> e : bnProperties.entrySet())
@@ -0,0 +1,125 @@
+package com.labun.buildnumber;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Ref;
+
+/** Results precomputed by the Git hooks (see {@link GitHooks}), stored in `.git/jgit-buildnumber/`, one file per HEAD and parameters.
+ *  <p>
+ *  Only the properties which depend on HEAD and tags, and which are expensive to compute, are stored: `tag`, `nearestTag`, `commitsCount`,
+ *  `commitsCountSinceNearestTag`, `describe`. A stored result is used if HEAD, the parameters affecting these properties, and the tags are
+ *  unchanged. The remaining properties are cheap to read or must be read in every build anyway (`dirty`: the working tree can change
+ *  without changing HEAD or the index). */
+class GitHookResults {
+
+    static final String DIRECTORY = "jgit-buildnumber";
+    static final List<String> propertyNames = Arrays.asList("tag", "nearestTag", "commitsCount", "commitsCountSinceNearestTag", "describe");
+
+    /** max. number of stored results (e.g. for switching between branches); the oldest ones are deleted */
+    static final int MAX_RESULTS = 20;
+
+    private static final String KEY = "_key";
+    private static final String TAGS = "_tags";
+
+    BuildNumberExtractor extractor;
+    Parameters params;
+    File directory;
+
+    GitHookResults(BuildNumberExtractor extractor) {
+        this.extractor = extractor;
+        this.params = extractor.params;
+        this.directory = new File(extractor.gitDir, DIRECTORY);
+    }
+
+    /** Parameters affecting the stored properties. */
+    private String key() {
+        return Arrays.asList(extractor.getHeadSha1(), params.getCountCommitsSinceInclusive(), params.getCountCommitsSinceExclusive(),
+            params.getCountCommitsSinceDate(), params.getMaxCommitsToCount(), params.getCountCommitsInPath(), params.getFirstParentOnly(),
+            params.getDateFormatTimeZone()).toString();
+    }
+
+    private File file(String key) {
+        return new File(directory, "result-" + extractor.getHeadSha1() + "-" + Integer.toHexString(key.hashCode()) + ".properties");
+    }
+
+    /** Tags can be created or deleted without a hook being run. Unpeeled ids are enough to detect changes. */
+    private String tagsFingerprint() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (Ref ref : extractor.repo.getRefDatabase().getRefsByPrefix(Constants.R_TAGS))
+            sb.append(ref.getName()).append('=').append(ref.getObjectId() != null ? ref.getObjectId().name() : "").append(';');
+        return Integer.toHexString(sb.toString().hashCode()) + "-" + sb.length();
+    }
+
+    /** @return stored properties (see {@link #propertyNames}), or `null` if there is no valid result for HEAD and parameters */
+    Map<String, String> read() {
+        if (!directory.isDirectory()) return null; // hooks not installed
+        try {
+            String key = key();
+            File file = file(key);
+            if (!file.isFile()) return null;
+
+            Properties props = new Properties();
+            try (InputStream in = Files.newInputStream(file.toPath())) {
+                props.load(in);
+            }
+            if (!key.equals(props.getProperty(KEY)) || !tagsFingerprint().equals(props.getProperty(TAGS))) return null;
+
+            Map<String, String> res = new HashMap<>();
+            for (String name : propertyNames) {
+                String value = props.getProperty(name);
+                if (value == null) return null;
+                res.put(name, value);
+            }
+            extractor.logVerbose("using values precomputed by Git hook: " + file);
+            return res;
+        } catch (IOException e) {
+            extractor.log("cannot read values precomputed by Git hook: " + e);
+            return null;
+        }
+    }
+
+    /** @param result properties extracted for the current HEAD (complete, i.e. not a partial result) */
+    void write(Map<String, String> result) throws Exception {
+        Files.createDirectories(directory.toPath());
+        String key = key();
+        Properties props = new Properties();
+        props.setProperty(KEY, key);
+        props.setProperty(TAGS, tagsFingerprint());
+        for (String name : propertyNames)
+            props.setProperty(name, result.get(name));
+
+        // write atomically, so that a build never reads a partially written file
+        File file = file(key);
+        File temp = File.createTempFile("result-", ".tmp", directory);
+        try {
+            try (OutputStream out = Files.newOutputStream(temp.toPath())) {
+                props.store(out, "Precomputed by JGit Build Number Git hook. Do not edit.");
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp.toPath()); // only if not moved
+        }
+        extractor.logVerbose("precomputed values written to: " + file);
+
+        deleteOldResults();
+    }
+
+    private void deleteOldResults() {
+        File[] results = directory.listFiles((dir, name) -> name.startsWith("result-") && name.endsWith(".properties"));
+        if (results == null || results.length <= MAX_RESULTS) return;
+        Stream.of(results).sorted(Comparator.comparingLong(File::lastModified).reversed()).skip(MAX_RESULTS).forEach(File::delete);
+    }
+}
@@ -0,0 +1,176 @@
+package com.labun.buildnumber;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.RepositoryBuilder;
+
+/** Installs Git hooks (`post-commit`, `post-checkout`, `post-merge`, `post-rewrite`) which precompute the expensive properties in the
+ *  background after every Git operation changing HEAD, see {@link GitHookResults}. Builds then only read them, as long as HEAD, the
+ *  parameters and the tags are unchanged.
+ *  <p>
+ *  Usage (the classpath has to contain this library and its dependencies; it is written into the hooks):
+ *  <pre>
+ *  java -cp &lt;classpath> com.labun.buildnumber.GitHooks install [&lt;repositoryDirectory>] [jgit.&lt;parameter>=&lt;value> ...]
+ *  java -cp &lt;classpath> com.labun.buildnumber.GitHooks uninstall [&lt;repositoryDirectory>]
+ *  </pre>
+ *  The parameters have to be the same as in the build (only those affecting the precomputed properties matter, e.g. `firstParentOnly`). */
+public class GitHooks {
+
+    static final List<String> hookNames = Arrays.asList("post-commit", "post-checkout", "post-merge", "post-rewrite");
+
+    /** first line of the block added to a hook; the second line is the command */
+    static final String MARKER = "# jgit-buildnumber: precompute build number properties in background";
+
+    /** parameters for the hooks, stored in {@link GitHookResults#DIRECTORY} */
+    static final String PARAMETERS_FILE = "hook-parameters.properties";
+
+    public static void main(String[] args) throws Exception {
+        String command = (args.length > 0) ? args[0] : "";
+        Logger logger = msg -> System.out.println(msg);
+        switch (command) {
+            case "install": {
+                SimpleParameters params = new SimpleParameters();
+                Properties props = new Properties();
+                for (String arg : Arrays.asList(args).subList(1, args.length)) {
+                    int eq = arg.indexOf('=');
+                    if (eq > 0) props.setProperty(arg.substring(0, eq), arg.substring(eq + 1));
+                    else params.setRepositoryDirectory(new File(arg));
+                }
+                ParameterProperties.read(params, props);
+                String classpath = Stream.of(System.getProperty("java.class.path").split(File.pathSeparator))
+                    .map(path -> new File(path).getAbsolutePath()).collect(Collectors.joining(File.pathSeparator));
+                install(params, classpath, logger);
+                break;
+            }
+            case "uninstall":
+                uninstall(new File(args.length > 1 ? args[1] : "."), logger);
+                break;
+            case "run":
+                run(new File(args[1]), logger);
+                break;
+            default:
+                System.err.println("Usage: GitHooks install [<repositoryDirectory>] [jgit.<parameter>=<value> ...] | uninstall [<repositoryDirectory>]");
+                System.exit(1);
+        }
+    }
+
+    /** @param  classpath classpath to run the hooks with (this library and its dependencies)
+     * @return           installed hook files */
+    public static List<File> install(Parameters params, String classpath, Logger logger) throws Exception {
+        params.validateAndSetParameterValues();
+        try (Repository repo = openRepository(params.getRepositoryDirectory())) {
+            File directory = new File(repo.getDirectory(), GitHookResults.DIRECTORY);
+            Files.createDirectories(directory.toPath());
+
+            params.setRepositoryDirectory(params.getRepositoryDirectory().getCanonicalFile());
+            File parametersFile = new File(directory, PARAMETERS_FILE);
+            try (OutputStream out = Files.newOutputStream(parametersFile.toPath())) {
+                ParameterProperties.write(params).store(out, "Parameters for JGit Build Number Git hooks");
+            }
+
+            String java = new File(System.getProperty("java.home"), "bin/java").getAbsolutePath();
+            String command = quote(java) + " -cp " + quote(classpath) + " " + GitHooks.class.getName() + " run " + quote(parametersFile.getAbsolutePath())
+                + " >/dev/null 2>&1 &";
+
+            List<File> res = new ArrayList<>();
+            File hooksDirectory = hooksDirectory(repo);
+            Files.createDirectories(hooksDirectory.toPath());
+            for (String hookName : hookNames) {
+                File hook = new File(hooksDirectory, hookName);
+                List<String> lines = hook.isFile() ? removeBlock(Files.readAllLines(hook.toPath(), StandardCharsets.UTF_8)) : new ArrayList<>();
+                if (lines.isEmpty()) lines.add("#!/bin/sh");
+                // right after the shebang: an existing hook may end with `exit` or `exec`
+                int index = lines.get(0).startsWith("#!") ? 1 : 0;
+                lines.addAll(index, Arrays.asList(MARKER, command));
+                Files.write(hook.toPath(), lines, StandardCharsets.UTF_8);
+                hook.setExecutable(true);
+                res.add(hook);
+            }
+            logger.log("Git hooks installed: " + res);
+            return res;
+        }
+    }
+
+    /** Removes the hooks (only the lines added by {@link #install}) and the precomputed results. */
+    public static void uninstall(File repositoryDirectory, Logger logger) throws Exception {
+        try (Repository repo = openRepository(repositoryDirectory)) {
+            File hooksDirectory = hooksDirectory(repo);
+            for (String hookName : hookNames) {
+                File hook = new File(hooksDirectory, hookName);
+                if (!hook.isFile()) continue;
+                List<String> lines = removeBlock(Files.readAllLines(hook.toPath(), StandardCharsets.UTF_8));
+                if (lines.stream().allMatch(line -> line.trim().isEmpty() || line.startsWith("#!"))) Files.delete(hook.toPath());
+                else Files.write(hook.toPath(), lines, StandardCharsets.UTF_8);
+            }
+            File directory = new File(repo.getDirectory(), GitHookResults.DIRECTORY);
+            if (directory.isDirectory()) {
+                try (Stream<java.nio.file.Path> paths = Files.walk(directory.toPath())) {
+                    paths.sorted(Comparator.reverseOrder()).map(java.nio.file.Path::toFile).forEach(File::delete);
+                }
+            }
+            logger.log("Git hooks uninstalled from: " + hooksDirectory);
+        }
+    }
+
+    /** Called by the hooks: extracts the properties and stores the precomputed ones. */
+    static void run(File parametersFile, Logger logger) throws Exception {
+        SimpleParameters params = new SimpleParameters();
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(parametersFile.toPath())) {
+            props.load(in);
+        }
+        ParameterProperties.read(params, props);
+        params.setTimeBudgetMillis(null); // running in background
+        params.setExtractSubmodules(false); // submodule properties are not precomputed
+        params.validateAndSetParameterValues();
+        if (params.getSkip()) return;
+
+        try (BuildNumberExtractor extractor = new BuildNumberExtractor(params, logger, BuildNumberExtractor.defaultExecutor, false)) { // status not stored
+            Map<String, String> result = extractor.extract();
+            if (!extractor.isPartialResult()) new GitHookResults(extractor).write(result);
+        }
+    }
+
+    private static Repository openRepository(File repositoryDirectory) throws Exception {
+        RepositoryBuilder builder = new RepositoryBuilder().findGitDir(repositoryDirectory.getCanonicalFile());
+        if (builder.getGitDir() == null) throw new IllegalArgumentException("Git directory '.git' not found (check parameter 'repositoryDirectory')");
+        return builder.build();
+    }
+
+    /** `core.hooksPath` or `.git/hooks` */
+    private static File hooksDirectory(Repository repo) {
+        String hooksPath = repo.getConfig().getString(ConfigConstants.CONFIG_CORE_SECTION, null, ConfigConstants.CONFIG_KEY_HOOKS_PATH);
+        if (hooksPath == null) return new File(repo.getDirectory(), "hooks");
+        File res = new File(hooksPath);
+        return res.isAbsolute() ? res : new File(repo.isBare() ? repo.getDirectory() : repo.getWorkTree(), hooksPath);
+    }
+
+    /** @return the lines without the block added by {@link #install} */
+    private static List<String> removeBlock(List<String> lines) {
+        List<String> res = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).equals(MARKER)) i++; // skip the command, too
+            else res.add(lines.get(i));
+        }
+        return res;
+    }
+
+    /** quotes for `sh` */
+    private static String quote(String s) {
+        return "'" + s.replace("'", "'\\''") + "'";
+    }
+}
@@ -0,0 +1,200 @@
+package com.labun.buildnumber;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.lang.model.SourceVersion;
+
+/** Writes extracted properties to output files (.properties, JSON, Java class), see {@link Parameters#getOutputPropertiesFile()}.
+ *  <p>
+ *  A file is only written if its content changes. So its modification time stays untouched, and incremental build steps depending on it
+ *  (resource processing, compilation) stay up to date. */
+public class OutputFileWriter {
+
+    /** properties which get a new value in every build, see {@link Parameters#getOutputIgnoreBuildDate()} */
+    static final List<String> volatilePropertyNames = Arrays.asList("buildDate", "buildDateMillis");
+
+    private static final String GENERATED_BY = "Generated by JGit Build Number (https://github.com/elab/jgit-buildnumber). Do not edit.";
+
+    Parameters params;
+    Logger logger;
+
+    /** Lines of a file to be written. For lines containing a volatile value, the beginning of the line up to the value is remembered. */
+    static class Content {
+        final List<String> lines = new ArrayList<>();
+        final Map<Integer, String> volatilePrefixes = new HashMap<>();
+
+        void add(String line) {
+            lines.add(line);
+        }
+
+        void add(String propertyName, String prefix, String rest) {
+            if (volatilePropertyNames.contains(propertyName)) volatilePrefixes.put(lines.size(), prefix);
+            lines.add(prefix + rest);
+        }
+    }
+
+    public OutputFileWriter(Parameters params, Logger logger) {
+        this.params = params;
+        this.logger = logger;
+    }
+
+    void logVerbose(String msg) {
+        if (params.getVerbose()) logger.log(msg);
+    }
+
+    /** @param  properties extracted properties (names without namespace)
+     * @return             files which have been (re)written; unchanged files are not included */
+    public List<File> write(Map<String, String> properties) throws IOException {
+        List<File> res = new ArrayList<>();
+        if (params.getOutputPropertiesFile() != null) {
+            if (writeIfChanged(params.getOutputPropertiesFile(), propertiesContent(properties))) res.add(params.getOutputPropertiesFile());
+        }
+        if (params.getOutputJsonFile() != null) {
+            if (writeIfChanged(params.getOutputJsonFile(), jsonContent(properties))) res.add(params.getOutputJsonFile());
+        }
+        if (params.getOutputJavaClassName() != null) {
+            File javaFile = javaFile(params.getOutputJavaDirectory(), params.getOutputJavaClassName());
+            if (writeIfChanged(javaFile, javaContent(properties, params.getOutputJavaClassName()))) res.add(javaFile);
+        }
+        return res;
+    }
+
+    /** @return `true` if the file has been written */
+    boolean writeIfChanged(File file, Content content) throws IOException {
+        if (file.isFile() && sameContent(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8), content)) {
+            logVerbose("output file unchanged: " + file);
+            return false;
+        }
+        logVerbose("writing output file: " + file);
+        if (file.getAbsoluteFile().getParentFile() != null) Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        Files.write(file.toPath(), content.lines, StandardCharsets.UTF_8);
+        return true;
+    }
+
+    private boolean sameContent(List<String> existingLines, Content content) {
+        if (existingLines.size() != content.lines.size()) return false;
+        for (int i = 0; i < existingLines.size(); i++) {
+            String existing = existingLines.get(i);
+            if (existing.equals(content.lines.get(i))) continue;
+            String prefix = params.getOutputIgnoreBuildDate() ? content.volatilePrefixes.get(i) : null;
+            if (prefix == null || !existing.startsWith(prefix)) return false;
+        }
+        return true;
+    }
+
+    static Content propertiesContent(Map<String, String> properties) {
+        Content res = new Content();
+        res.add("# " + GENERATED_BY);
+        for (Map.Entry<String, String> e : properties.entrySet())
+            res.add(e.getKey(), escapeProperties(e.getKey(), true) + "=", escapeProperties(e.getValue(), false));
+        return res;
+    }
+
+    static Content jsonContent(Map<String, String> properties) {
+        Content res = new Content();
+        res.add("{");
+        int i = 0;
+        for (Map.Entry<String, String> e : properties.entrySet()) {
+            String separator = (++i < properties.size()) ? "," : "";
+            res.add(e.getKey(), "  \"" + escapeJava(e.getKey(), false) + "\": \"", escapeJava(e.getValue(), false) + "\"" + separator);
+        }
+        res.add("}");
+        return res;
+    }
+
+    /** @return properties as a JSON object in one line (e.g. for JSON Lines output) */
+    public static String jsonLine(Map<String, String> properties) {
+        StringBuilder sb = new StringBuilder("{");
+        for (Map.Entry<String, String> e : properties.entrySet()) {
+            if (sb.length() > 1) sb.append(", ");
+            sb.append('"').append(escapeJava(e.getKey(), false)).append("\": \"").append(escapeJava(e.getValue(), false)).append('"');
+        }
+        return sb.append("}").toString();
+    }
+
+    static Content javaContent(Map<String, String> properties, String className) {
+        int dot = className.lastIndexOf('.');
+        String packageName = (dot > 0) ? className.substring(0, dot) : null;
+        String simpleName = className.substring(dot + 1);
+
+        Content res = new Content();
+        if (packageName != null) {
+            res.add("package " + packageName + ";");
+            res.add("");
+        }
+        res.add("/** " + GENERATED_BY + " */");
+        res.add("public final class " + simpleName + " {");
+        res.add("");
+        for (Map.Entry<String, String> e : properties.entrySet())
+            res.add(e.getKey(), "    public static final String " + constantName(e.getKey()) + " = \"", escapeJava(e.getValue(), true) + "\";");
+        res.add("");
+        res.add("    private " + simpleName + "() {");
+        res.add("    }");
+        res.add("}");
+        return res;
+    }
+
+    static File javaFile(File sourceDirectory, String className) {
+        if (!SourceVersion.isName(className)) throw new IllegalArgumentException("Invalid Java class name (parameter 'outputJavaClassName'): " + className);
+        if (sourceDirectory == null)
+            throw new IllegalArgumentException("Parameter 'outputJavaDirectory' is required if parameter 'outputJavaClassName' is set");
+        return new File(sourceDirectory, className.replace('.', File.separatorChar) + ".java");
+    }
+
+    /** "buildDateMillis" -> "BUILD_DATE_MILLIS", "submodules.lib/core.revision" -> "SUBMODULES_LIB_CORE_REVISION" */
+    static String constantName(String propertyName) {
+        return propertyName.replaceAll("([a-z0-9])([A-Z])", "$1_$2").replaceAll("[^A-Za-z0-9_]", "_").toUpperCase();
+    }
+
+    private static String escapeProperties(String s, boolean isKey) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\': sb.append("\\\\"); break;
+                case '\t': sb.append("\\t"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\f': sb.append("\\f"); break;
+                case '=': case ':': case '#': case '!': sb.append('\\').append(c); break;
+                case ' ': sb.append((isKey || i == 0) ? "\\ " : " "); break;
+                default: appendAsciiOrUnicodeEscape(sb, c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /** also used for JSON (except that `unicodeEscapeAll` is `false`, so that non-ASCII characters are written as is) */
+    private static String escapeJava(String s, boolean unicodeEscapeAll) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\t': sb.append("\\t"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\f': sb.append("\\f"); break;
+                case '\b': sb.append("\\b"); break;
+                default:
+                    if (c < 0x20 || unicodeEscapeAll) appendAsciiOrUnicodeEscape(sb, c);
+                    else sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendAsciiOrUnicodeEscape(StringBuilder sb, char c) {
+        if (c >= 0x20 && c < 0x7f) sb.append(c);
+        else sb.append(String.format("\\u%04x", (int) c));
+    }
+}
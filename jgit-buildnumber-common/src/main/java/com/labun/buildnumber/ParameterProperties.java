@@ -0,0 +1,45 @@
+package com.labun.buildnumber;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.Properties;
+
+/** Reads and writes {@link Parameters} as properties named `jgit.<parameterName>` (e.g. `jgit.buildNumberFormat`). Used where parameters
+ *  cannot be configured by the build tool (Maven core extension, Git hooks). */
+public class ParameterProperties {
+
+    public static final String PREFIX = "jgit.";
+
+    /** Sets every parameter for which a property `jgit.<parameterName>` exists. */
+    public static void read(Parameters params, Properties props) throws Exception {
+        for (Method setter : Parameters.class.getMethods()) {
+            if (!setter.getName().startsWith("set") || setter.getParameterCount() != 1) continue;
+            String value = props.getProperty(PREFIX + parameterName(setter));
+            if (value == null) continue;
+
+            Class<?> type = setter.getParameterTypes()[0];
+            if (type == Integer.class) setter.invoke(params, Integer.valueOf(value.trim()));
+            else if (type == Long.class) setter.invoke(params, Long.valueOf(value.trim()));
+            else if (type == Boolean.class) setter.invoke(params, Boolean.valueOf(value.trim()));
+            else if (type == File.class) setter.invoke(params, new File(value));
+            else setter.invoke(params, value);
+        }
+    }
+
+    /** @return a property `jgit.<parameterName>` for every parameter which is set */
+    public static Properties write(Parameters params) throws Exception {
+        Properties res = new Properties();
+        for (Method getter : Parameters.class.getMethods()) {
+            if (!getter.getName().startsWith("get") || getter.getParameterCount() != 0) continue;
+            Object value = getter.invoke(params);
+            if (value == null) continue;
+            res.setProperty(PREFIX + parameterName(getter), (value instanceof File) ? ((File) value).getAbsolutePath() : value.toString());
+        }
+        return res;
+    }
+
+    /** "setBuildNumberFormat" -> "buildNumberFormat" */
+    private static String parameterName(Method accessor) {
+        return Character.toLowerCase(accessor.getName().charAt(3)) + accessor.getName().substring(4);
+    }
+}
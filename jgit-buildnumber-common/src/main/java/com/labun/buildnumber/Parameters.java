@@ -48,12 +48,31 @@ public interface Parameters {
     /** See {@link #getCountCommitsSinceInclusive()} */
     String getCountCommitsSinceExclusive();
 
+    /** Only commits with a commit date at or after this date are counted, e.g. since the start of a release train. 
+     *  Format: `yyyy-MM-dd`, `yyyy-MM-dd HH:mm:ss` or `yyyy-MM-dd'T'HH:mm:ss`, in `dateFormatTimeZone`. The history walk stops as soon as 
+     *  a few consecutive commits are older (tolerating some clock skew between committers), so its cost depends on the number of commits 
+     *  since the date, not on the age of the repo. Default: not set (all commits get counted).
+     *  <p><i>Note: If `countCommitsSinceDate` or `maxCommitsToCount` is set, commits are walked in commit date order (like `git log`) 
+     *  instead of topological order, since the latter requires reading the whole history in advance. 
+     *  `nearestTag` is only searched among the visited commits.</i> */
+    String getCountCommitsSinceDate();
+
+    /** Maximum number of commits to count; the history walk stops when reached. Useful to bound the walk cost for huge repos. 
+     *  Must be positive. See also the note in {@link #getCountCommitsSinceDate()}. Default: not set (all commits get counted). */
+    Integer getMaxCommitsToCount();
+
     /** Relative path to a folder or a file in Git Repo. Only commits which affect the specified path will be counted. 
      *  The path starts without the leading `/`; path to a folder may contain an optional trailing `/`.<br>
      *  Default: not set (all commits get counted).
      *  <p><i>Note: The commit specified with {@link #getCountCommitsSinceInclusive()}, {@link #getCountCommitsSinceExclusive()} 
      *  has to be among the commits remaining after applying `countCommitsInPath` parameter. */
     String getCountCommitsInPath();
+
+    /** If `true`, only first parents are followed when walking the history (like `git rev-list --first-parent`), i.e. commits merged from 
+     *  other branches are neither counted nor searched for tags. Applies to `commitsCount`, `nearestTag`, `commitsCountSinceNearestTag` 
+     *  and `describe` (like `git describe --first-parent`). On a mainline with merged feature branches, the numbers grow by one per commit 
+     *  (merge) on the mainline, and far fewer commits are visited. Default: `false`. */
+    Boolean getFirstParentOnly();
     
     /** JavaScript expression to format/compose the `buildNumber` property. Uses JS engine from JDK. 
      * All extracted properties are exposed to JavaScript as global String variables (names without "git" namespace). 
@@ -72,6 +91,55 @@ public interface Parameters {
      * */
     String getBuildNumberFormat();
 
+    /** If `true`, `revision`, `shortRevision`, `dirty`, `commitsCount` and `describe` are also extracted for every (initialized) submodule 
+     *  of the Git repo, concurrently, and published as `submodules.<path>.<property>` (e.g. `git.submodules.lib/core.revision`). 
+     *  History dependent values of submodules whose checked out commit didn't change are reused from the previous extraction in the same JVM. 
+     *  Nested submodules are not included. Default: `false`. */
+    Boolean getExtractSubmodules();
+
+    /** Time budget for the extraction in milliseconds, counted from the start of extraction. Phases still running when the budget is exhausted 
+     *  (Git status, counting commits, describe) get cancelled, and a warning is logged. The history dependent properties (`commitsCount`, 
+     *  `nearestTag`, `commitsCountSinceNearestTag`, `describe`) then get the values of the last complete extraction for the same HEAD 
+     *  (if extracted before in the same JVM, e.g. Gradle daemon or Eclipse), or partial values: `commitsCount` = -1, `describe` = `shortRevision`, 
+     *  `nearestTag` only if found in time. If Git status could not be completed, `dirty` is set. Default: not set (no time limit). */
+    Integer getTimeBudgetMillis();
+
+    /** Use memory mapping to access pack files (JGit `core.packedGitMMAP`). May speed up reading of large pack files.
+     *  Default: not set (JGit default: `false`).
+     *  <p><i>Note: JGit's pack file cache is global per JVM (e.g. shared by all builds in a Gradle daemon or Eclipse). If any of the parameters 
+     *  `packedGitMMAP`, `packedGitLimit`, `deltaBaseCacheLimit` is set, the cache is reconfigured, and the parameters not set get JGit default values.</i> */
+    Boolean getPackedGitMMAP();
+
+    /** Maximum number of bytes of pack files to hold in memory (JGit `core.packedGitLimit`). Default: not set (JGit default: 10 MiB). 
+     *  See note in {@link #getPackedGitMMAP()}. */
+    Long getPackedGitLimit();
+
+    /** Maximum number of bytes to cache reconstructed delta bases (JGit `core.deltaBaseCacheLimit`). Default: not set (JGit default: 10 MiB). 
+     *  See note in {@link #getPackedGitMMAP()}. */
+    Integer getDeltaBaseCacheLimit();
+
+    /** If set, the extracted properties (names without namespace) are written to this `.properties` file. 
+     *  The file is only written if its content changes (see also {@link #getOutputIgnoreBuildDate()}). Default: not set. */
+    File getOutputPropertiesFile();
+
+    /** If set, the extracted properties (names without namespace) are written to this JSON file. 
+     *  The file is only written if its content changes (see also {@link #getOutputIgnoreBuildDate()}). Default: not set. */
+    File getOutputJsonFile();
+
+    /** If set, a Java class with this fully qualified name is generated in {@link #getOutputJavaDirectory()}, containing the extracted 
+     *  properties as String constants (e.g. `BUILD_NUMBER`). The file is only written if its content changes 
+     *  (see also {@link #getOutputIgnoreBuildDate()}). Default: not set. */
+    String getOutputJavaClassName();
+
+    /** Source directory for the class specified with {@link #getOutputJavaClassName()}. 
+     *  Default: Maven: `${project.build.directory}/generated-sources/jgit-buildnumber` (added to compile source roots), 
+     *  Gradle: `${buildDir}/generated-sources/jgit-buildnumber`, Ant: not set (required). */
+    File getOutputJavaDirectory();
+
+    /** If `true`, output files are not rewritten if only `buildDate` and `buildDateMillis` properties have changed. 
+     *  Otherwise, they are rewritten in every build. Default: `false`. */
+    Boolean getOutputIgnoreBuildDate();
+
     /** Directory to start searching Git root from, should contain `.git` directory
      *  or be a subdirectory of such directory. Default: project directory (Maven: `${project.basedir}`, Ant: `${basedir}`, Gradle: `projectDir`). */
     File getRepositoryDirectory();
@@ -94,8 +162,21 @@ public interface Parameters {
     void setDateFormatTimeZone(String param);
     void setCountCommitsSinceInclusive(String param);
     void setCountCommitsSinceExclusive(String param);
+    void setCountCommitsSinceDate(String param);
+    void setMaxCommitsToCount(Integer param);
     void setCountCommitsInPath(String param);
+    void setFirstParentOnly(Boolean param);
     void setBuildNumberFormat(String param);
+    void setExtractSubmodules(Boolean param);
+    void setTimeBudgetMillis(Integer param);
+    void setPackedGitMMAP(Boolean param);
+    void setPackedGitLimit(Long param);
+    void setDeltaBaseCacheLimit(Integer param);
+    void setOutputPropertiesFile(File param);
+    void setOutputJsonFile(File param);
+    void setOutputJavaClassName(String param);
+    void setOutputJavaDirectory(File param);
+    void setOutputIgnoreBuildDate(Boolean param);
     void setRepositoryDirectory(File param);
     void setRunOnlyAtExecutionRoot(Boolean param);
     void setSkip(Boolean param);
@@ -111,6 +192,10 @@ public interface Parameters {
         if (getShortRevisionLength() == null || getShortRevisionLength() < 0 || getShortRevisionLength() > 40) setShortRevisionLength(7);
         if (getGitDateFormat() == null) setGitDateFormat("yyyy-MM-dd");
         if (getBuildDateFormat() == null) setBuildDateFormat("yyyy-MM-dd HH:mm:ss");
+        if (getMaxCommitsToCount() != null && getMaxCommitsToCount() <= 0) setMaxCommitsToCount(null);
+        if (getFirstParentOnly() == null) setFirstParentOnly(false);
+        if (getExtractSubmodules() == null) setExtractSubmodules(false);
+        if (getOutputIgnoreBuildDate() == null) setOutputIgnoreBuildDate(false);
         if (getRepositoryDirectory() == null) setRepositoryDirectory(new File("."));
         if (getRunOnlyAtExecutionRoot() == null) setRunOnlyAtExecutionRoot(true);
         if (getSkip() == null) setSkip(false);
@@ -121,7 +206,13 @@ public interface Parameters {
         return "namespace=" + getNamespace() + ", dirtyValue=" + getDirtyValue() + ", shortRevisionLength=" + getShortRevisionLength() + ", gitDateFormat="
             + getGitDateFormat() + ", buildDateFormat=" + getBuildDateFormat() + ", dateFormatTimeZone=" + getDateFormatTimeZone()
             + ", countCommitsSinceInclusive=" + getCountCommitsSinceInclusive() + ", countCommitsSinceExclusive=" + getCountCommitsSinceExclusive()
-            + ", countCommitsInPath=" + getCountCommitsInPath() + ", buildNumberFormat=" + getBuildNumberFormat() + ", repositoryDirectory="
-            + getRepositoryDirectory() + ", runOnlyAtExecutionRoot=" + getRunOnlyAtExecutionRoot() + ", skip=" + getSkip() + ", verbose=" + getVerbose();
+            + ", countCommitsSinceDate=" + getCountCommitsSinceDate() + ", maxCommitsToCount=" + getMaxCommitsToCount()
+            + ", countCommitsInPath=" + getCountCommitsInPath() + ", firstParentOnly=" + getFirstParentOnly()
+            + ", buildNumberFormat=" + getBuildNumberFormat() + ", extractSubmodules=" + getExtractSubmodules() + ", timeBudgetMillis=" + getTimeBudgetMillis()
+            + ", packedGitMMAP=" + getPackedGitMMAP() + ", packedGitLimit=" + getPackedGitLimit() + ", deltaBaseCacheLimit=" + getDeltaBaseCacheLimit()
+            + ", outputPropertiesFile=" + getOutputPropertiesFile() + ", outputJsonFile=" + getOutputJsonFile() + ", outputJavaClassName="
+            + getOutputJavaClassName() + ", outputJavaDirectory=" + getOutputJavaDirectory() + ", outputIgnoreBuildDate=" + getOutputIgnoreBuildDate()
+            + ", repositoryDirectory=" + getRepositoryDirectory() + ", runOnlyAtExecutionRoot=" + getRunOnlyAtExecutionRoot() + ", skip=" + getSkip()
+            + ", verbose=" + getVerbose();
     }
 }
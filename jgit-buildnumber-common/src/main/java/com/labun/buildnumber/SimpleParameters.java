@@ -0,0 +1,38 @@
+package com.labun.buildnumber;
+
+import java.io.File;
+
+import lombok.Data;
+
+/** Plain {@link Parameters} bean, for parameters not configured by a build tool (e.g. read by {@link ParameterProperties}). */
+@Data
+public class SimpleParameters implements Parameters {
+
+    private String namespace;
+    private String dirtyValue;
+    private Integer shortRevisionLength;
+    private String gitDateFormat;
+    private String buildDateFormat;
+    private String dateFormatTimeZone;
+    private String countCommitsSinceInclusive;
+    private String countCommitsSinceExclusive;
+    private String countCommitsSinceDate;
+    private Integer maxCommitsToCount;
+    private String countCommitsInPath;
+    private Boolean firstParentOnly;
+    private String buildNumberFormat;
+    private Boolean extractSubmodules;
+    private Integer timeBudgetMillis;
+    private Boolean packedGitMMAP;
+    private Long packedGitLimit;
+    private Integer deltaBaseCacheLimit;
+    private File outputPropertiesFile;
+    private File outputJsonFile;
+    private String outputJavaClassName;
+    private File outputJavaDirectory;
+    private Boolean outputIgnoreBuildDate;
+    private File repositoryDirectory;
+    private Boolean runOnlyAtExecutionRoot;
+    private Boolean skip;
+    private Boolean verbose;
+}
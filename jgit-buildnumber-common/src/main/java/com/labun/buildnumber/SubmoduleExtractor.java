@@ -0,0 +1,146 @@
+package com.labun.buildnumber;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.errors.RevWalkException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.submodule.SubmoduleWalk;
+
+import com.labun.buildnumber.BuildNumberExtractor.CachedHistory;
+
+/** Extracts `revision`, `shortRevision`, `dirty`, `commitsCount` and `describe` of the submodules of a Git repo, see
+ *  {@link Parameters#getExtractSubmodules()}.
+ *  <p>
+ *  Submodules are enumerated from the index of the main repo (gitlinks) and extracted concurrently on the executor of the main extractor.
+ *  `commitsCount` and `describe` only depend on the checked out commit; the values of the last extraction are kept per submodule (in the 
+ *  same JVM, e.g. Gradle daemon, Eclipse), so unchanged submodules (same checked out commit) don't need a history walk. `dirty` is read every time. */
+class SubmoduleExtractor {
+
+    /** last values (commitsCount, describe) per submodule Git dir; key: checked out commit, parameters */
+    private static final Map<File, CachedHistory> historyCache = new ConcurrentHashMap<>();
+
+    BuildNumberExtractor extractor;
+    Parameters params;
+
+    SubmoduleExtractor(BuildNumberExtractor extractor) {
+        this.extractor = extractor;
+        this.params = extractor.params;
+    }
+
+    /** @return properties of all initialized submodules, named `submodules.<path>.<property>` */
+    CompletableFuture<Map<String, String>> extract() throws Exception {
+        List<CompletableFuture<Map<String, String>>> futures = new ArrayList<>();
+        try (SubmoduleWalk walk = SubmoduleWalk.forIndex(extractor.repo)) {
+            while (walk.next()) {
+                String path = walk.getPath();
+                ObjectId gitlink = walk.getObjectId();
+                Repository subRepo = walk.getRepository(); // gets closed by the task
+                if (subRepo == null) {
+                    extractor.logVerbose("submodule not initialized, skipped: " + path);
+                    continue;
+                }
+                futures.add(extractor.async(() -> {
+                    try (Repository r = subRepo) {
+                        return extract(path, gitlink, r);
+                    }
+                }));
+            }
+        }
+        extractor.logVerbose("number of submodules: " + futures.size());
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            Map<String, String> res = new TreeMap<>();
+            for (CompletableFuture<Map<String, String>> future : futures)
+                res.putAll(future.join());
+            return res;
+        });
+    }
+
+    private Map<String, String> extract(String path, ObjectId gitlink, Repository subRepo) throws Exception {
+        long t = System.currentTimeMillis();
+
+        Ref headRef = subRepo.exactRef(Constants.HEAD);
+        ObjectId headObjectId = (headRef != null) ? headRef.getObjectId() : null;
+        if (headObjectId == null) {
+            extractor.log("cannot read current revision (HEAD) of submodule, skipped: " + path);
+            return Collections.emptyMap();
+        }
+        String revision = headObjectId.name();
+        String shortRevision = BuildNumberExtractor.abbreviateSha1(revision, params.getShortRevisionLength());
+
+        Git git = Git.wrap(subRepo);
+        BuildNumberExtractor.PhaseMonitor statusMonitor = new BuildNumberExtractor.PhaseMonitor(extractor.timeBudget);
+        boolean dirty = !headObjectId.equals(gitlink) // checked out commit is not committed in main repo
+            || !git.status().setProgressMonitor(statusMonitor).call().isClean() || statusMonitor.cancelled; // incomplete status: assume dirty
+        boolean complete = !statusMonitor.cancelled;
+
+        List<Object> key = Arrays.asList(revision, params.getShortRevisionLength(), params.getFirstParentOnly());
+        CachedHistory cached = historyCache.get(subRepo.getDirectory());
+        Map<String, String> history = (cached != null && cached.getKey().equals(key)) ? cached.getValues() : null;
+        if (history != null) {
+            extractor.logVerbose("[parallel thread] submodule " + path + ": using cached values " + history);
+        } else {
+            history = new HashMap<>();
+            Integer commitsCount = countCommits(subRepo, headObjectId);
+            String describe = (commitsCount == null) ? null : readDescribe(git, headObjectId); // null: time budget exceeded
+            history.put("commitsCount", (commitsCount != null) ? commitsCount.toString() : "-1");
+            history.put("describe", (describe != null) ? describe : shortRevision);
+            if (commitsCount != null && describe != null) historyCache.put(subRepo.getDirectory(), new CachedHistory(key, history));
+            else complete = false;
+        }
+        if (!complete) {
+            extractor.partialResult = true;
+            extractor.log("WARNING: time budget of " + params.getTimeBudgetMillis() + " ms exceeded; partial values for submodule " + path);
+        }
+
+        String prefix = "submodules." + path + ".";
+        Map<String, String> res = new HashMap<>();
+        res.put(prefix + "revision", revision);
+        res.put(prefix + "shortRevision", shortRevision);
+        res.put(prefix + "dirty", dirty ? params.getDirtyValue() : "");
+        res.put(prefix + "commitsCount", history.get("commitsCount"));
+        res.put(prefix + "describe", history.get("describe"));
+        extractor.logVerbose("[parallel thread] extracting submodule " + path + ": " + (System.currentTimeMillis() - t) + " ms");
+        return res;
+    }
+
+    private String readDescribe(Git git, ObjectId headObjectId) throws Exception {
+        if (!params.getFirstParentOnly()) return BuildNumberExtractor.readDescribe(git);
+        try (ObjectReader reader = git.getRepository().newObjectReader()) {
+            return BuildNumberExtractor.readDescribeFirstParent(reader, headObjectId, BuildNumberExtractor.loadTagsMap(git.getRepository()),
+                extractor.timeBudget);
+        }
+    }
+
+    /** @return number of commits reachable from the checked out commit, -1 for shallow clones, or `null` if the time budget is exceeded */
+    private Integer countCommits(Repository subRepo, ObjectId headObjectId) throws Exception {
+        try (RevWalk walk = new RevWalk(subRepo)) {
+            walk.setRetainBody(false);
+            walk.setFirstParent(params.getFirstParentOnly());
+            walk.markStart(walk.parseCommit(headObjectId));
+            int res = 0;
+            while (walk.next() != null) {
+                if (extractor.timeBudget.isExceeded()) return null;
+                res++;
+            }
+            return res;
+        } catch (RevWalkException ex) {
+            return -1; // shallow clone
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.labun.buildnumber;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+class BuildNumberBatchExtractorTest {
+
+    @TempDir
+    File repoDir;
+
+    private int time = 1600000000;
+
+    /** commits with increasing times (the order of commits with the same time is ambiguous for `git describe`) */
+    private RevCommit commit(Git git, String message) throws Exception {
+        PersonIdent ident = new PersonIdent("test", "test@example.com", new Date((time += 60) * 1000L), TimeZone.getTimeZone("UTC"));
+        return git.commit().setMessage(message).setAllowEmpty(true).setAuthor(ident).setCommitter(ident).call();
+    }
+
+    /** master: c1 (tag v1) - c2 - c3 (merge of feature) - c4; feature: c1 - f1 (tag f-tag) - f2 */
+    private void createRepo(Git git) throws Exception {
+        commit(git, "c1");
+        git.tag().setName("v1").call();
+        git.checkout().setCreateBranch(true).setName("feature").call();
+        commit(git, "f1");
+        git.tag().setName("f-tag").setAnnotated(false).call();
+        RevCommit f2 = commit(git, "f2");
+        git.checkout().setName("master").call();
+        commit(git, "c2");
+        git.merge().include(f2).setCommit(false).call();
+        commit(git, "c3");
+        commit(git, "c4");
+    }
+
+    @Test
+    void test() throws Exception {
+        try (Git git = Git.init().setDirectory(repoDir).setInitialBranch("master").call()) {
+            createRepo(git);
+
+            Parameters params = new SimpleParameters();
+            params.setVerbose(true);
+            params.setRepositoryDirectory(repoDir);
+            params.validateAndSetParameterValues();
+
+            List<Map<String, String>> results = new ArrayList<>();
+            try (BuildNumberBatchExtractor extractor = new BuildNumberBatchExtractor(params, msg -> log.info(msg))) {
+                extractor.extract("HEAD", results::add);
+            }
+            assertEquals(6, results.size());
+
+            for (Map<String, String> res : results) {
+                ObjectId id = ObjectId.fromString(res.get("revision"));
+                assertEquals(Integer.toString(countCommits(git, id)), res.get("commitsCount"), res.toString());
+                assertEquals(git.describe().setTarget(id).setLong(true).setTags(true).setAlways(true).call(), res.get("describe"), res.toString());
+            }
+
+            results.clear();
+            try (BuildNumberBatchExtractor extractor = new BuildNumberBatchExtractor(params, msg -> log.info(msg))) {
+                extractor.extract("v1..master", results::add);
+            }
+            assertEquals(5, results.size());
+            assertEquals("master.6." + results.get(4).get("shortRevision"), results.get(4).get("buildNumber"));
+        }
+    }
+
+    @Test
+    void testFirstParentOnly() throws Exception {
+        try (Git git = Git.init().setDirectory(repoDir).setInitialBranch("master").call()) {
+            createRepo(git);
+
+            Parameters params = new SimpleParameters();
+            params.setVerbose(true);
+            params.setRepositoryDirectory(repoDir);
+            params.setFirstParentOnly(true);
+            params.validateAndSetParameterValues();
+
+            List<Map<String, String>> results = new ArrayList<>();
+            try (BuildNumberBatchExtractor extractor = new BuildNumberBatchExtractor(params, msg -> log.info(msg))) {
+                extractor.extract("HEAD", results::add);
+            }
+            for (Map<String, String> res : results) {
+                ObjectId id = ObjectId.fromString(res.get("revision"));
+                assertEquals(Integer.toString(countCommits(git, id, true)), res.get("commitsCount"), res.toString());
+            }
+
+            // master: c1 (tag v1) - c2 - c3 (merge) - c4; tag f-tag on the merged branch is not considered
+            Map<String, String> head;
+            try (BuildNumberExtractor extractor = new BuildNumberExtractor(params, msg -> log.info(msg))) {
+                head = extractor.extract();
+            }
+            assertEquals("4", head.get("commitsCount"));
+            assertEquals("v1", head.get("nearestTag"));
+            assertEquals("3", head.get("commitsCountSinceNearestTag"));
+            assertEquals("v1-3-g" + head.get("revision").substring(0, 7), head.get("describe"));
+
+            Map<String, String> batchHead = results.get(results.size() - 1);
+            for (String name : Arrays.asList("commitsCount", "nearestTag", "commitsCountSinceNearestTag", "describe"))
+                assertEquals(head.get(name), batchHead.get(name), name);
+        }
+    }
+
+    private static int countCommits(Git git, ObjectId id) throws Exception {
+        return countCommits(git, id, false);
+    }
+
+    private static int countCommits(Git git, ObjectId id, boolean firstParent) throws Exception {
+        try (RevWalk walk = new RevWalk(git.getRepository())) {
+            walk.setFirstParent(firstParent);
+            walk.markStart(walk.parseCommit(id));
+            int res = 0;
+            for (RevCommit c : walk)
+                res++;
+            return res;
+        }
+    }
+}
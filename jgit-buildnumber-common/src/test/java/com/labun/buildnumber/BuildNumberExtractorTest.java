@@ -1,10 +1,29 @@
 package com.labun.buildnumber;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -19,9 +38,218 @@ class BuildNumberExtractorTest {
         params.setBuildNumberFormat("branch + '.' + commitsCount + '/' + commitDate + '/' + shortRevision + (dirty.length > 0 ? '-' + dirty : '')");
 
         assertDoesNotThrow(() -> {
-            BuildNumberExtractor extractor = new BuildNumberExtractor(params, msg -> log.info(msg));
-            extractor.extract();
+            try (BuildNumberExtractor extractor = new BuildNumberExtractor(params, msg -> log.info(msg))) {
+                extractor.extract();
+            }
         });
     }
 
+    @Test
+    void testWindowCacheConfig() {
+        Parameters params = new SimpleParameters();
+        params.setVerbose(true);
+        params.setRepositoryDirectory(new File("."));
+        params.setPackedGitMMAP(true);
+        params.setPackedGitLimit(32L * 1024 * 1024);
+        params.setDeltaBaseCacheLimit(16 * 1024 * 1024);
+
+        assertDoesNotThrow(() -> {
+            try (BuildNumberExtractor extractor = new BuildNumberExtractor(params, msg -> log.info(msg))) {
+                extractor.extract();
+            }
+        });
+    }
+
+    @Test
+    void testSequentialExecutor() throws Exception {
+        Parameters params = new SimpleParameters();
+        params.setVerbose(true);
+        params.setRepositoryDirectory(new File("."));
+        params.setBuildDateFormat("yyyy"); // buildDate is the same for both extractions
+
+        Map<String, String> concurrent;
+        try (BuildNumberExtractor extractor = new BuildNumberExtractor(params, msg -> log.info(msg))) {
+            concurrent = extractor.extract();
+        }
+        try (BuildNumberExtractor extractor = new BuildNumberExtractor(params, msg -> log.info(msg), Runnable::run)) {
+            Map<String, String> sequential = extractor.extract();
+            sequential.put("buildDateMillis", concurrent.get("buildDateMillis"));
+            assertEquals(concurrent, sequential);
+        }
+    }
+
+    @Test
+    void testCloseWaitsForRunningPhases() throws Exception {
+        Parameters params = new SimpleParameters();
+        params.setVerbose(true);
+        params.setRepositoryDirectory(new File("."));
+
+        List<String> messages = new CopyOnWriteArrayList<>();
+        List<Runnable> queued = new ArrayList<>();
+        BuildNumberExtractor extractor = new BuildNumberExtractor(params, messages::add, queued::add); // queues Git status
+        CompletableFuture<Integer> phase = extractor.async(() -> {
+            extractor.close(); // e.g. extract() failed in the calling thread meanwhile
+            assertFalse(messages.contains("Git repo closed after the last running phase ended"));
+            return extractor.loadTagsMap().size();
+        });
+        queued.get(1).run();
+        assertTrue(phase.isDone());
+        assertTrue(messages.contains("Git repo closed after the last running phase ended"));
+
+        queued.get(0).run(); // phases starting after close() are cancelled
+        assertThrows(CancellationException.class, () -> extractor.isGitStatusDirty());
+    }
+
+    @Test
+    void testCountCommitsSinceDateAndMax(@TempDir File repoDir) throws Exception {
+        try (Git git = Git.init().setDirectory(repoDir).setInitialBranch("master").call()) {
+            // one commit per day since 2021-01-01; the third one has a skewed commit time (2020-12-01)
+            long day = 24 * 60 * 60 * 1000L;
+            long start = 1609459200000L; // 2021-01-01 00:00:00 UTC
+            for (int i = 0; i < 5; i++) {
+                long time = (i == 2) ? start - 31 * day : start + i * day;
+                PersonIdent ident = new PersonIdent("test", "test@example.com", new Date(time), TimeZone.getTimeZone("UTC"));
+                git.commit().setMessage("c" + (i + 1)).setAllowEmpty(true).setAuthor(ident).setCommitter(ident).call();
+            }
+        }
+
+        Parameters params = new SimpleParameters();
+        params.setVerbose(true);
+        params.setRepositoryDirectory(repoDir);
+        params.setDateFormatTimeZone("UTC");
+        params.setCountCommitsSinceDate("2021-01-02");
+        try (BuildNumberExtractor extractor = new BuildNumberExtractor(params, msg -> log.info(msg))) {
+            assertEquals("3", extractor.extract().get("commitsCount")); // c5, c4, c2 (walk doesn't stop at the skewed c3)
+        }
+
+        params.setCountCommitsSinceDate(null);
+        params.setMaxCommitsToCount(2);
+        try (BuildNumberExtractor extractor = new BuildNumberExtractor(params, msg -> log.info(msg))) {
+            assertEquals("2", extractor.extract().get("commitsCount"));
+        }
+
+        params.setMaxCommitsToCount(null);
+        params.setCountCommitsSinceDate("2021-02-30");
+        try (BuildNumberExtractor extractor = new BuildNumberExtractor(params, msg -> log.info(msg))) {
+            assertThrows(IllegalArgumentException.class, () -> extractor.extract());
+        }
+    }
+
+    @Test
+    void testTimeBudgetStopsTopoSortedWalk(@TempDir File repoDir) throws Exception {
+        try (Git git = Git.init().setDirectory(repoDir).setInitialBranch("master").call()) {
+            for (int i = 0; i < 50; i++)
+                git.commit().setMessage("c" + (i + 1)).setAllowEmpty(true).call();
+        }
+
+        // budget exceeded after the 10th commit read
+        int[] checks = new int[1];
+        BuildNumberExtractor.TimeBudget timeBudget = new BuildNumberExtractor.TimeBudget(System.currentTimeMillis(), null) {
+            @Override
+            boolean isExceeded() {
+                return ++checks[0] > 10;
+            }
+        };
+        try (Git git = Git.open(repoDir); RevWalk walk = new RevWalk(git.getRepository())) {
+            walk.sort(RevSort.TOPO, true); // reads the whole history before returning the first commit
+            walk.setRevFilter(new BuildNumberExtractor.TimeBudgetRevFilter(timeBudget));
+            walk.markStart(walk.parseCommit(git.getRepository().resolve("HEAD")));
+            assertThrows(BuildNumberExtractor.TimeBudgetExceededException.class, () -> walk.next());
+        }
+        assertEquals(11, checks[0]); // the remaining 40 commits are not read
+    }
+
+    @Test
+    void testGitStatusFinishingAfterDeadline(@TempDir File repoDir) throws Exception {
+        // JGit checks for cancellation only every 1000 files in small repositories
+        Map<String, String> res = extractWithGitStatusAfterDeadline(repoDir, 1, false);
+        assertEquals("", res.get("dirty"));
+    }
+
+    @Test
+    void testGitStatusCancelledByDeadline(@TempDir File repoDir) throws Exception {
+        Map<String, String> res = extractWithGitStatusAfterDeadline(repoDir, 200, true);
+        assertEquals("dirty", res.get("dirty"));
+    }
+
+    /** Only Git status (the first phase) overruns the time budget: it starts after the deadline; the other phases run immediately. */
+    private Map<String, String> extractWithGitStatusAfterDeadline(File repoDir, int fileCount, boolean partialResult) throws Exception {
+        try (Git git = Git.init().setDirectory(repoDir).setInitialBranch("master").call()) {
+            for (int i = 0; i < fileCount; i++) Files.write(new File(repoDir, "file" + i + ".txt").toPath(), "x".getBytes());
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("c1").call();
+            git.tag().setName("v1").call();
+            git.commit().setMessage("c2").setAllowEmpty(true).call();
+        }
+
+        Parameters params = new SimpleParameters();
+        params.setVerbose(true);
+        params.setRepositoryDirectory(repoDir);
+        params.setTimeBudgetMillis(1000);
+
+        boolean[] first = { true };
+        Executor executor = task -> {
+            if (!first[0]) {
+                BuildNumberExtractor.defaultExecutor.execute(task);
+                return;
+            }
+            first[0] = false;
+            new Thread(() -> {
+                try {
+                    Thread.sleep(1500);
+                } catch (InterruptedException e) {}
+                task.run();
+            }).start();
+        };
+        Map<String, String> res;
+        try (BuildNumberExtractor extractor = new BuildNumberExtractor(params, msg -> log.info(msg), executor)) {
+            res = extractor.extract();
+            assertEquals(partialResult, extractor.isPartialResult());
+            // the history phases finished, though the deadline has passed
+            assertEquals("2", res.get("commitsCount"));
+            assertEquals("v1", res.get("nearestTag"));
+            assertTrue(res.get("describe").startsWith("v1-1-g"));
+        }
+
+        // the values have been remembered as complete values
+        params.setTimeBudgetMillis(0);
+        try (BuildNumberExtractor extractor = new BuildNumberExtractor(params, msg -> log.info(msg))) {
+            Map<String, String> cached = extractor.extract();
+            assertEquals("2", cached.get("commitsCount"));
+            assertEquals(res.get("describe"), cached.get("describe"));
+        }
+        return res;
+    }
+
+    @Test
+    void testTimeBudget() throws Exception {
+        Parameters params = new SimpleParameters();
+        params.setVerbose(true);
+        params.setRepositoryDirectory(new File("."));
+        params.setShortRevisionLength(9); // other history cache key than in other tests
+        params.setTimeBudgetMillis(0);
+
+        try (BuildNumberExtractor extractor = new BuildNumberExtractor(params, msg -> log.info(msg))) {
+            Map<String, String> res = extractor.extract();
+            assertTrue(extractor.isPartialResult());
+            assertEquals("-1", res.get("commitsCount"));
+            assertEquals(res.get("shortRevision"), res.get("describe"));
+        }
+
+        params.setTimeBudgetMillis(null);
+        Map<String, String> complete;
+        try (BuildNumberExtractor extractor = new BuildNumberExtractor(params, msg -> log.info(msg))) {
+            complete = extractor.extract();
+            assertFalse(extractor.isPartialResult());
+        }
+
+        params.setTimeBudgetMillis(0);
+        try (BuildNumberExtractor extractor = new BuildNumberExtractor(params, msg -> log.info(msg))) {
+            Map<String, String> res = extractor.extract();
+            assertTrue(extractor.isPartialResult());
+            assertEquals(complete.get("commitsCount"), res.get("commitsCount")); // last complete value
+            assertEquals(complete.get("describe"), res.get("describe"));
+        }
+    }
+
 }
@@ -0,0 +1,80 @@
+package com.labun.buildnumber;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+class GitHooksTest {
+
+    @TempDir
+    File repoDir;
+
+    private Parameters params() {
+        Parameters params = new SimpleParameters();
+        params.setVerbose(true);
+        params.setRepositoryDirectory(repoDir);
+        params.validateAndSetParameterValues();
+        return params;
+    }
+
+    @Test
+    void test() throws Exception {
+        try (Git git = Git.init().setDirectory(repoDir).setInitialBranch("master").call()) {
+            git.commit().setMessage("c1").setAllowEmpty(true).call();
+            git.tag().setName("v1").call();
+            git.commit().setMessage("c2").setAllowEmpty(true).call();
+        }
+
+        File hooksDir = new File(repoDir, ".git/hooks");
+        Files.createDirectories(hooksDir.toPath());
+        Files.write(new File(hooksDir, "post-merge").toPath(), "#!/bin/sh\necho merged\nexit 0\n".getBytes(StandardCharsets.UTF_8));
+
+        GitHooks.install(params(), "test.jar", msg -> log.info(msg));
+        GitHooks.install(params(), "test.jar", msg -> log.info(msg)); // installing again replaces the block
+        String postMerge = new String(Files.readAllBytes(new File(hooksDir, "post-merge").toPath()), StandardCharsets.UTF_8);
+        assertTrue(postMerge.startsWith("#!/bin/sh\n" + GitHooks.MARKER + "\n")); // before `exit 0` of the existing hook
+        assertTrue(postMerge.endsWith("\necho merged\nexit 0\n"));
+        assertEquals(1, postMerge.split(GitHooks.MARKER, -1).length - 1);
+        assertTrue(new File(hooksDir, "post-commit").canExecute());
+
+        // what the hooks run
+        File parametersFile = new File(repoDir, ".git/" + GitHookResults.DIRECTORY + "/" + GitHooks.PARAMETERS_FILE);
+        GitHooks.run(parametersFile, msg -> log.info(msg));
+
+        try (BuildNumberExtractor extractor = new BuildNumberExtractor(params(), msg -> log.info(msg))) {
+            Map<String, String> precomputed = new GitHookResults(extractor).read();
+            assertNotNull(precomputed);
+            assertEquals("2", precomputed.get("commitsCount"));
+            assertEquals("v1", precomputed.get("nearestTag"));
+            assertEquals(extractor.extract().get("describe"), precomputed.get("describe"));
+        }
+
+        // tags changed without running a hook => precomputed values are outdated
+        try (Git git = Git.open(repoDir)) {
+            git.tag().setName("v2").call();
+        }
+        try (BuildNumberExtractor extractor = new BuildNumberExtractor(params(), msg -> log.info(msg))) {
+            assertNull(new GitHookResults(extractor).read());
+            assertEquals("v2", extractor.extract().get("tag"));
+        }
+
+        GitHooks.uninstall(repoDir, msg -> log.info(msg));
+        assertEquals("#!/bin/sh\necho merged\nexit 0\n", new String(Files.readAllBytes(new File(hooksDir, "post-merge").toPath()), StandardCharsets.UTF_8));
+        assertFalse(new File(hooksDir, "post-commit").exists());
+        assertFalse(parametersFile.getParentFile().exists());
+    }
+}
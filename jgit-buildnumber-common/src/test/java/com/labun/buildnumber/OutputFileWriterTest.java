@@ -0,0 +1,76 @@
+package com.labun.buildnumber;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+class OutputFileWriterTest {
+
+    @TempDir
+    File tempDir;
+
+    private Map<String, String> properties(String buildDate) {
+        Map<String, String> res = new TreeMap<>();
+        res.put("buildNumber", "master.12.abc1234");
+        res.put("branch", "feature/a=b: ä \"x\"");
+        res.put("buildDate", buildDate);
+        return res;
+    }
+
+    private Parameters params(boolean ignoreBuildDate) {
+        Parameters params = new SimpleParameters();
+        params.setVerbose(true);
+        params.setOutputPropertiesFile(new File(tempDir, "git.properties"));
+        params.setOutputJsonFile(new File(tempDir, "git.json"));
+        params.setOutputJavaClassName("com.example.BuildInfo");
+        params.setOutputJavaDirectory(new File(tempDir, "src"));
+        params.setOutputIgnoreBuildDate(ignoreBuildDate);
+        params.validateAndSetParameterValues();
+        return params;
+    }
+
+    @Test
+    void testWriteIfChanged() throws Exception {
+        OutputFileWriter writer = new OutputFileWriter(params(false), msg -> log.info(msg));
+        assertEquals(3, writer.write(properties("2021-06-20 10:00:00")).size());
+        assertEquals(0, writer.write(properties("2021-06-20 10:00:00")).size());
+        assertEquals(3, writer.write(properties("2021-06-20 10:00:01")).size());
+
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(new File(tempDir, "git.properties"))) {
+            props.load(in);
+        }
+        assertEquals(properties("2021-06-20 10:00:01"), new TreeMap<>(props));
+        assertTrue(new File(tempDir, "src/com/example/BuildInfo.java").isFile());
+    }
+
+    @Test
+    void testIgnoreBuildDate() throws Exception {
+        OutputFileWriter writer = new OutputFileWriter(params(true), msg -> log.info(msg));
+        assertEquals(3, writer.write(properties("2021-06-20 10:00:00")).size());
+        assertEquals(0, writer.write(properties("2021-06-20 10:00:01")).size());
+
+        Map<String, String> changed = properties("2021-06-20 10:00:02");
+        changed.put("buildNumber", "master.13.def5678");
+        assertEquals(3, writer.write(changed).size());
+    }
+
+    @Test
+    void testConstantName() {
+        assertEquals("BUILD_DATE_MILLIS", OutputFileWriter.constantName("buildDateMillis"));
+        assertEquals("REVISION", OutputFileWriter.constantName("revision"));
+        assertEquals("SUBMODULES_LIB_CORE_SHORT_REVISION", OutputFileWriter.constantName("submodules.lib/core.shortRevision"));
+    }
+}
@@ -0,0 +1,64 @@
+package com.labun.buildnumber;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Map;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+class SubmoduleExtractorTest {
+
+    @TempDir
+    File tempDir;
+
+    private Map<String, String> extract(File repoDir) throws Exception {
+        Parameters params = new SimpleParameters();
+        params.setVerbose(true);
+        params.setRepositoryDirectory(repoDir);
+        params.setExtractSubmodules(true);
+        params.validateAndSetParameterValues();
+        try (BuildNumberExtractor extractor = new BuildNumberExtractor(params, msg -> log.info(msg))) {
+            return extractor.extract();
+        }
+    }
+
+    @Test
+    void test() throws Exception {
+        File libDir = new File(tempDir, "lib");
+        File mainDir = new File(tempDir, "main");
+        RevCommit libHead;
+        try (Git lib = Git.init().setDirectory(libDir).setInitialBranch("master").call()) {
+            lib.commit().setMessage("l1").setAllowEmpty(true).call();
+            lib.tag().setName("v1").call();
+            libHead = lib.commit().setMessage("l2").setAllowEmpty(true).call();
+        }
+        try (Git main = Git.init().setDirectory(mainDir).setInitialBranch("master").call()) {
+            main.commit().setMessage("m1").setAllowEmpty(true).call();
+            main.submoduleAdd().setPath("libs/core").setURI(libDir.toURI().toString()).call().close();
+            main.commit().setMessage("m2").call();
+        }
+
+        String prefix = "submodules.libs/core.";
+        Map<String, String> res = extract(mainDir);
+        assertEquals(libHead.name(), res.get(prefix + "revision"));
+        assertEquals(libHead.name().substring(0, 7), res.get(prefix + "shortRevision"));
+        assertEquals("", res.get(prefix + "dirty"));
+        assertEquals("2", res.get(prefix + "commitsCount"));
+        assertEquals("v1-1-g" + libHead.name().substring(0, 7), res.get(prefix + "describe"));
+
+        // unchanged submodule: history values from cache; dirty is read again
+        Files.write(new File(mainDir, "libs/core/new.txt").toPath(), "x".getBytes());
+        Map<String, String> res2 = extract(mainDir);
+        assertEquals("dirty", res2.get(prefix + "dirty"));
+        assertEquals(res.get(prefix + "commitsCount"), res2.get(prefix + "commitsCount"));
+        assertEquals(res.get(prefix + "describe"), res2.get(prefix + "describe"));
+    }
+}
@@ -0,0 +1,168 @@
+package com.labun.buildnumber;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+
+import org.eclipse.jgit.lib.RepositoryBuilder;
+import org.gradle.api.GradleException;
+import org.gradle.api.Project;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+/** Root project extension `jgitBuildNumber`, created by {@link JGitBuildNumberGradlePlugin} and shared by all projects which apply the plugin.
+ * <p>
+ * Configured with the same parameters as {@link JGitBuildNumberGradleTask}. The Git repo is read lazily, only when a value is read for the first
+ * time, and only once per build; all projects get the same result. No task dependencies are needed, e.g.:
+ * <pre>
+ * jgitBuildNumber { shortRevisionLength = 9 }
+ * version = jgitBuildNumber.lazy('buildNumber') // evaluated when version is first used
+ * println jgitBuildNumber.values.buildNumber   // evaluated now
+ * </pre> */
+@Getter
+@Setter
+public class JGitBuildNumberGradleExtension implements Parameters {
+
+    public static final String NAME = "jgitBuildNumber";
+
+    /** parameters which don't affect the extracted values (repositoryDirectory: compared by Git dir) */
+    private static final List<String> nonExtractionParameters = Arrays.asList("namespace", "outputPropertiesFile", "outputJsonFile",
+        "outputJavaClassName", "outputJavaDirectory", "outputIgnoreBuildDate", "repositoryDirectory", "runOnlyAtExecutionRoot", "skip", "verbose");
+
+    private String namespace;
+    private String dirtyValue;
+    private Integer shortRevisionLength;
+    private String gitDateFormat;
+    private String buildDateFormat;
+    private String dateFormatTimeZone;
+    private String countCommitsSinceInclusive;
+    private String countCommitsSinceExclusive;
+    private String countCommitsSinceDate;
+    private Integer maxCommitsToCount;
+    private String countCommitsInPath;
+    private Boolean firstParentOnly;
+    private String buildNumberFormat;
+    private Boolean extractSubmodules;
+    private Integer timeBudgetMillis;
+    private Boolean packedGitMMAP;
+    private Long packedGitLimit;
+    private Integer deltaBaseCacheLimit;
+    private File outputPropertiesFile;
+    private File outputJsonFile;
+    private String outputJavaClassName;
+    private File outputJavaDirectory;
+    private Boolean outputIgnoreBuildDate;
+    private File repositoryDirectory;
+    private Boolean runOnlyAtExecutionRoot;
+    private Boolean skip;
+    private Boolean verbose;
+
+    @Getter(AccessLevel.NONE)
+    private final Project project;
+
+    /** result of the extraction, `null` until first read */
+    @Setter(AccessLevel.NONE)
+    private volatile Map<String, String> values;
+
+    /** Value of a single property, read from the extraction result on first use. Can be used wherever Gradle accepts a lazy value
+     *  (an object whose `toString()` is called late, like `project.version`, or a {@link Callable}). */
+    public class LazyValue implements Callable<String> {
+        private final String name;
+
+        LazyValue(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String call() {
+            return getValues().get(name);
+        }
+
+        @Override
+        public String toString() {
+            return call();
+        }
+    }
+
+    public JGitBuildNumberGradleExtension(Project project) {
+        this.project = project;
+    }
+
+    /** @return lazy value of the property `name` (without namespace, e.g. "buildNumber"); the Git repo is not read yet */
+    public LazyValue lazy(String name) {
+        return new LazyValue(name);
+    }
+
+    /** @return extracted properties (names without namespace); the Git repo is read on first call. Empty if `skip` is set. */
+    public Map<String, String> getValues() {
+        Map<String, String> res = values;
+        if (res == null) {
+            synchronized (this) {
+                res = values;
+                if (res == null) values = res = extract();
+            }
+        }
+        return res;
+    }
+
+    /** @return `true` if an extraction with `params` would have the same result as the one of this extension (same Git repo and parameters
+     *         affecting the extracted values), so that {@link #getValues()} can be used instead */
+    public synchronized boolean hasSameExtractionParameters(Parameters params) {
+        prepareParameters();
+        if (skip) return false;
+        try {
+            return extractionParameters(this).equals(extractionParameters(params))
+                && Objects.equals(gitDir(getRepositoryDirectory()), gitDir(params.getRepositoryDirectory()));
+        } catch (Exception e) {
+            throw new GradleException(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName(), e);
+        }
+    }
+
+    private static Properties extractionParameters(Parameters params) throws Exception {
+        Properties res = ParameterProperties.write(params);
+        for (String name : nonExtractionParameters)
+            res.remove(ParameterProperties.PREFIX + name);
+        return res;
+    }
+
+    private static File gitDir(File repositoryDirectory) throws IOException {
+        return new RepositoryBuilder().findGitDir(repositoryDirectory.getCanonicalFile()).getGitDir();
+    }
+
+    private void prepareParameters() {
+        // set some parameters to Gradle specific values
+        if (getRepositoryDirectory() == null) setRepositoryDirectory(project.getProjectDir());
+        if (getOutputJavaClassName() != null && getOutputJavaDirectory() == null)
+            setOutputJavaDirectory(new File(project.getBuildDir(), "generated-sources/jgit-buildnumber"));
+
+        validateAndSetParameterValues();
+    }
+
+    private Map<String, String> extract() {
+        prepareParameters();
+
+        if (skip) {
+            project.getLogger().lifecycle("Execution is skipped by configuration.");
+            return Collections.emptyMap();
+        }
+
+        try {
+            Map<String, String> properties;
+            try (BuildNumberExtractor extractor = new BuildNumberExtractor(this, msg -> project.getLogger().lifecycle(msg))) {
+                properties = extractor.extract();
+            }
+            new OutputFileWriter(this, msg -> project.getLogger().lifecycle(msg)).write(properties);
+            return Collections.unmodifiableMap(properties);
+        } catch (Exception e) {
+            throw new GradleException(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName(), e);
+        }
+    }
+}
@@ -8,5 +8,11 @@ public class JGitBuildNumberGradlePlugin implements Plugin<Project> {
     @Override
     public void apply(Project project) {
         JGitBuildNumberGradleTask task = project.getTasks().replace("extract-buildnumber", JGitBuildNumberGradleTask.class);
+
+        // one extension (and so one extraction) per build, created on the root project and shared by all projects applying the plugin
+        Project root = project.getRootProject();
+        JGitBuildNumberGradleExtension extension = root.getExtensions().findByType(JGitBuildNumberGradleExtension.class);
+        if (extension == null) extension = root.getExtensions().create(JGitBuildNumberGradleExtension.NAME, JGitBuildNumberGradleExtension.class, root);
+        if (project != root) project.getExtensions().add(JGitBuildNumberGradleExtension.NAME, extension);
     }
 }
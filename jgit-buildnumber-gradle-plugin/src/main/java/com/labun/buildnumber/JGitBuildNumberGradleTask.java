@@ -22,8 +22,21 @@ public class JGitBuildNumberGradleTask extends DefaultTask implements Parameters
     private String dateFormatTimeZone;
     private String countCommitsSinceInclusive;
     private String countCommitsSinceExclusive;
+    private String countCommitsSinceDate;
+    private Integer maxCommitsToCount;
     private String countCommitsInPath;
+    private Boolean firstParentOnly;
     private String buildNumberFormat;
+    private Boolean extractSubmodules;
+    private Integer timeBudgetMillis;
+    private Boolean packedGitMMAP;
+    private Long packedGitLimit;
+    private Integer deltaBaseCacheLimit;
+    private File outputPropertiesFile;
+    private File outputJsonFile;
+    private String outputJavaClassName;
+    private File outputJavaDirectory;
+    private Boolean outputIgnoreBuildDate;
     private File repositoryDirectory;
     private Boolean runOnlyAtExecutionRoot;
     private Boolean skip;
@@ -33,6 +46,8 @@ public class JGitBuildNumberGradleTask extends DefaultTask implements Parameters
     public void extractBuildnumber() throws Exception {
         // set some parameters to Gradle specific values
         if (getRepositoryDirectory() == null) setRepositoryDirectory(getProject().getProjectDir());
+        if (getOutputJavaClassName() != null && getOutputJavaDirectory() == null)
+            setOutputJavaDirectory(new File(getProject().getBuildDir(), "generated-sources/jgit-buildnumber"));
 
         validateAndSetParameterValues();
 
@@ -41,7 +56,18 @@ public class JGitBuildNumberGradleTask extends DefaultTask implements Parameters
             return;
         }
 
-        Map<String, String> properties = new BuildNumberExtractor(this, msg -> getLogger().lifecycle(msg)).extract(); // "info" level will not be printed by default
+        // the same extraction as the (memoized) root project extension? => take its result instead of reading the Git repo again
+        Map<String, String> properties;
+        JGitBuildNumberGradleExtension extension = getProject().getRootProject().getExtensions().findByType(JGitBuildNumberGradleExtension.class);
+        if (extension != null && extension.hasSameExtractionParameters(this)) {
+            properties = extension.getValues();
+            if (verbose) getLogger().lifecycle("using result of extension '" + JGitBuildNumberGradleExtension.NAME + "': " + properties);
+        } else {
+            try (BuildNumberExtractor extractor = new BuildNumberExtractor(this, msg -> getLogger().lifecycle(msg))) { // "info" level will not be printed by default
+                properties = extractor.extract();
+            }
+        }
+        new OutputFileWriter(this, msg -> getLogger().lifecycle(msg)).write(properties);
         
         getProject().getExtensions().add(Map.class, namespace, properties);
     }
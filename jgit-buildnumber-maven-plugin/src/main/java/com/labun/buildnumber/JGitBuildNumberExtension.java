@@ -0,0 +1,117 @@
+package com.labun.buildnumber;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.MavenExecutionException;
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.SessionData;
+import org.slf4j.LoggerFactory;
+
+/** Optional Maven core extension. Starts extraction of Git metadata in a background thread right at session start, so that it runs in parallel
+ * with reading POMs and building the reactor. {@link JGitBuildNumberMojo} then only takes the result instead of reading the Git repo itself.
+ * <p>
+ * Has to be registered in `.mvn/extensions.xml`. Since POMs are not read yet at session start, parameters are taken from user/system properties
+ * with the prefix `jgit.` (e.g. `-Djgit.buildNumberFormat=...`, or in `.mvn/maven.config`). The result is only used by the mojo if its
+ * parameters are the same. */
+@Named("jgit-buildnumber")
+@Singleton
+public class JGitBuildNumberExtension extends AbstractMavenLifecycleParticipant {
+
+    static final String PROPERTY_PREFIX = ParameterProperties.PREFIX;
+
+    /** If `true`, waits for the extraction at session start and publishes the properties as user properties, so that they can be used in POM
+     *  model interpolation (e.g. CI-friendly `${revision}` versions). */
+    static final String INJECT_PROPERTIES = PROPERTY_PREFIX + "injectProperties";
+
+    private static final String PARAMS_KEY = "jgitEarlyParams";
+    private static final String RESULT_KEY = "jgitEarlyResult";
+
+    private final org.slf4j.Logger logger = LoggerFactory.getLogger(JGitBuildNumberExtension.class);
+
+    @Override
+    public void afterSessionStart(MavenSession session) throws MavenExecutionException {
+        Properties props = new Properties();
+        props.putAll(session.getSystemProperties());
+        props.putAll(session.getUserProperties()); // user properties win
+
+        SimpleParameters params = new SimpleParameters();
+        try {
+            ParameterProperties.read(params, props);
+        } catch (Exception e) {
+            throw new MavenExecutionException("Invalid JGit BuildNumber parameters: " + e, e);
+        }
+        if (params.getRepositoryDirectory() == null) params.setRepositoryDirectory(new File(session.getExecutionRootDirectory()));
+        params.validateAndSetParameterValues();
+
+        if (params.getSkip()) return;
+
+        if (params.getVerbose()) logger.info("JGit BuildNumber Maven Extension - starting extraction in background");
+        CompletableFuture<Map<String, String>> future = CompletableFuture.supplyAsync(() -> {
+            try (BuildNumberExtractor extractor = new BuildNumberExtractor(params, msg -> logger.info(msg))) {
+                return extractor.extract();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        });
+
+        // note: only JDK types are stored, since the mojo is loaded by a different classloader
+        SessionData data = session.getRepositorySession().getData();
+        try {
+            data.set(PARAMS_KEY + params.getNamespace(), earlyResultKey(params));
+        } catch (IOException e) {
+            throw new MavenExecutionException("Invalid repository directory provided: " + params.getRepositoryDirectory(), e);
+        }
+        data.set(RESULT_KEY + params.getNamespace(), future);
+
+        if (Boolean.parseBoolean(props.getProperty(INJECT_PROPERTIES))) {
+            try {
+                Map<String, String> result = getResult(future);
+                for (Map.Entry<String, String> e : result.entrySet())
+                    session.getUserProperties().setProperty(params.getNamespace() + "." + e.getKey(), e.getValue());
+            } catch (Exception e) {
+                throw new MavenExecutionException(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    /** @return result of the early extraction, or `null` if no extraction was started for the namespace or the parameters differ */
+    @SuppressWarnings("unchecked")
+    static Future<Map<String, String>> findEarlyResult(MavenSession session, Parameters params) throws Exception {
+        if (session == null || session.getRepositorySession() == null) return null;
+        SessionData data = session.getRepositorySession().getData();
+        Object earlyParams = data.get(PARAMS_KEY + params.getNamespace());
+        if (earlyParams == null || !earlyParams.equals(earlyResultKey(params))) return null;
+        return (Future<Map<String, String>>) data.get(RESULT_KEY + params.getNamespace());
+    }
+
+    /** Waits for the result and unwraps the exception thrown by the extractor, if any. */
+    static Map<String, String> getResult(Future<Map<String, String>> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = (e.getCause() instanceof CompletionException && e.getCause().getCause() != null) ? e.getCause().getCause() : e.getCause();
+            throw (cause instanceof Exception) ? (Exception) cause : e;
+        }
+    }
+
+    /** Parameters affecting the extraction result. */
+    private static List<Object> earlyResultKey(Parameters p) throws IOException {
+        return Arrays.asList(p.getRepositoryDirectory().getCanonicalPath(), p.getDirtyValue(), p.getShortRevisionLength(), p.getGitDateFormat(),
+            p.getBuildDateFormat(), p.getDateFormatTimeZone(), p.getCountCommitsSinceInclusive(), p.getCountCommitsSinceExclusive(),
+            p.getCountCommitsSinceDate(), p.getMaxCommitsToCount(), p.getCountCommitsInPath(), p.getFirstParentOnly(), p.getBuildNumberFormat(),
+            p.getExtractSubmodules());
+    }
+}
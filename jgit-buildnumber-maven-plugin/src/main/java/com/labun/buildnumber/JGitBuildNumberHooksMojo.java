@@ -0,0 +1,51 @@
+package com.labun.buildnumber;
+
+import java.io.File;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/** Installs Git hooks which precompute the expensive properties after every commit, checkout, merge and rewrite, see {@link GitHooks}.
+ *  The hooks use the parameters of the plugin configuration (e.g. `firstParentOnly`), so the goal has to be run again if they are changed:
+ *  <pre>mvn com.labun.buildnumber:jgit-buildnumber-maven-plugin:install-git-hooks</pre> */
+@Getter
+@Setter
+@Mojo(name = "install-git-hooks", requiresProject = false, threadSafe = true)
+public class JGitBuildNumberHooksMojo extends JGitBuildNumberMojo {
+
+    /** `true`: removes the hooks installed by this goal. */
+    @Parameter(property = "jgit.uninstallHooks", defaultValue = "false")
+    private boolean uninstallHooks;
+
+    /** The plugin, for the classpath of the hooks. */
+    @Parameter(defaultValue = "${plugin}", readonly = true)
+    private PluginDescriptor plugin;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        // set some parameters to Maven specific values
+        if (getRepositoryDirectory() == null) setRepositoryDirectory(getProject() != null ? getProject().getBasedir() : new File("."));
+
+        try {
+            if (uninstallHooks) {
+                GitHooks.uninstall(getRepositoryDirectory(), msg -> getLog().info(msg));
+            } else {
+                String classpath = plugin.getArtifacts().stream().map(artifact -> artifact.getFile()).filter(Objects::nonNull)
+                    .map(File::getAbsolutePath).collect(Collectors.joining(File.pathSeparator));
+                GitHooks.install(this, classpath, msg -> getLog().info(msg));
+            }
+        } catch (Exception e) {
+            String message = e.getMessage() != null ? e.getMessage() : /* e.g. NPE */ e.getClass().getSimpleName();
+            getLog().error(message);
+            throw new MojoFailureException(message, e);
+        }
+    }
+}
@@ -3,13 +3,16 @@ package com.labun.buildnumber;
 import static com.labun.buildnumber.BuildNumberExtractor.propertyNames;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.TreeMap;
+import java.util.concurrent.Future;
 
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -42,8 +45,21 @@ public class JGitBuildNumberMojo extends AbstractMojo implements Parameters {
     private @Parameter String dateFormatTimeZone;
     private @Parameter String countCommitsSinceInclusive;
     private @Parameter String countCommitsSinceExclusive;
+    private @Parameter String countCommitsSinceDate;
+    private @Parameter Integer maxCommitsToCount;
     private @Parameter String countCommitsInPath;
+    private @Parameter Boolean firstParentOnly;
     private @Parameter String buildNumberFormat;
+    private @Parameter Boolean extractSubmodules;
+    private @Parameter Integer timeBudgetMillis;
+    private @Parameter Boolean packedGitMMAP;
+    private @Parameter Long packedGitLimit;
+    private @Parameter Integer deltaBaseCacheLimit;
+    private @Parameter File outputPropertiesFile;
+    private @Parameter File outputJsonFile;
+    private @Parameter String outputJavaClassName;
+    private @Parameter File outputJavaDirectory;
+    private @Parameter Boolean outputIgnoreBuildDate;
     private @Parameter File repositoryDirectory;
     private @Parameter Boolean runOnlyAtExecutionRoot;
     private @Parameter Boolean skip;
@@ -51,7 +67,7 @@ public class JGitBuildNumberMojo extends AbstractMojo implements Parameters {
 
     // ---------- parameters (read only) ----------
 
-    @Parameter(property = "project.basedir", readonly = true, required = true)
+    @Parameter(property = "project.basedir", readonly = true) // not required: not available for goals running without project
     private File baseDirectory;
 
     @Parameter(property = "session.executionRootDirectory", readonly = true, required = true)
@@ -61,6 +77,10 @@ public class JGitBuildNumberMojo extends AbstractMojo implements Parameters {
     @Parameter(property = "project", readonly = true)
     private MavenProject project;
 
+    /** The maven session. */
+    @Parameter(property = "session", readonly = true)
+    private MavenSession session;
+
     /** The maven parent project. */
     @Parameter(property = "project.parent", readonly = true)
     private MavenProject parentProject;
@@ -75,6 +95,8 @@ public class JGitBuildNumberMojo extends AbstractMojo implements Parameters {
 
         // set some parameters to Maven specific values
         if (getRepositoryDirectory() == null) setRepositoryDirectory(project.getBasedir()); // ${project.basedir}
+        if (getOutputJavaClassName() != null && getOutputJavaDirectory() == null)
+            setOutputJavaDirectory(new File(project.getBuild().getDirectory(), "generated-sources/jgit-buildnumber"));
 
         validateAndSetParameterValues();
 
@@ -83,6 +105,8 @@ public class JGitBuildNumberMojo extends AbstractMojo implements Parameters {
             return;
         }
 
+        if (outputJavaClassName != null) project.addCompileSourceRoot(outputJavaDirectory.getPath());
+
         if (verbose) getLog().info("JGit BuildNumber Maven Plugin - start");
         if (verbose) getLog().info("executionRootDirectory: " + executionRootDirectory + ", baseDirectory: " + baseDirectory);
 
@@ -91,26 +115,35 @@ public class JGitBuildNumberMojo extends AbstractMojo implements Parameters {
             // http://www.sonatype.com/people/2009/05/how-to-make-a-plugin-run-once-during-a-build/
             if (!runOnlyAtExecutionRoot || executionRootDirectory.equals(baseDirectory)) {
 
-                BuildNumberExtractor extractor = new BuildNumberExtractor(this, msg -> getLog().info(msg));
-
-                String headSha1 = extractor.getHeadSha1();
-                String dirty = extractor.isGitStatusDirty() ? dirtyValue : null;
-
-                List<Object> params = Arrays.asList(headSha1, dirty, shortRevisionLength, gitDateFormat, buildDateFormat, dateFormatTimeZone,
-                    countCommitsSinceInclusive, countCommitsSinceExclusive, countCommitsInPath, buildNumberFormat);
-                String paramsKey = "jgitParams" + namespace;
-                String resultKey = "jgitResult" + namespace;
+                // extraction already started by JGitBuildNumberExtension (core extension) with the same parameters? => only wait for it
+                Future<Map<String, String>> earlyResult = JGitBuildNumberExtension.findEarlyResult(session, this);
+                if (earlyResult != null) {
+                    Map<String, String> result = JGitBuildNumberExtension.getResult(earlyResult);
+                    if (verbose) getLog().info("using result of early extraction (core extension): " + result);
+                    setProperties(result, project.getProperties());
+                    writeOutputFiles(result);
+                    return;
+                }
 
-                // note: saving/loading custom classes doesn't work (due to different classloaders?, "cannot be cast" error);
-                // when saving Properties object, our values don't survive; therefore we use a Map here
-                Map<String, String> result = getCachedResultFromBuildConext(paramsKey, params, resultKey);
-                if (result != null) {
-                    if (verbose) getLog().info("using cached result: " + result);
-                } else {
-                    result = extractor.extract();
-                    saveResultToBuildContext(paramsKey, params, resultKey, result);
+                try (BuildNumberExtractor extractor = new BuildNumberExtractor(this, msg -> getLog().info(msg))) {
+
+                    String paramsKey = "jgitParams" + namespace;
+                    String resultKey = "jgitResult" + namespace;
+
+                    // note: saving/loading custom classes doesn't work (due to different classloaders?, "cannot be cast" error);
+                    // when saving Properties object, our values don't survive; therefore we use a Map here
+                    // (the cache key depends on Git status: waiting for it only pays off in incremental builds; otherwise
+                    // it would delay the start of the other extraction phases)
+                    Map<String, String> result = isIncrementalBuild() ? getCachedResultFromBuildConext(paramsKey, cacheKey(extractor), resultKey) : null;
+                    if (result != null) {
+                        if (verbose) getLog().info("using cached result: " + result);
+                    } else {
+                        result = extractor.extract();
+                        if (!extractor.isPartialResult()) saveResultToBuildContext(paramsKey, cacheKey(extractor), resultKey, result); // status already read
+                    }
+                    setProperties(result, project.getProperties());
+                    writeOutputFiles(result);
                 }
-                setProperties(result, project.getProperties());
 
             } else if ("pom".equals(parentProject.getPackaging())) {
                 // build started from parent, we are in subproject, lets provide parent properties to our project
@@ -125,6 +158,7 @@ public class JGitBuildNumberMojo extends AbstractMojo implements Parameters {
                 }
                 if (verbose) getLog().info("using already extracted properties from parent module: " + toMap(parentProps));
                 setProperties(parentProps, project.getProperties());
+                writeOutputFiles(toMap(parentProps));
 
             } else {
                 // should not happen
@@ -143,6 +177,27 @@ public class JGitBuildNumberMojo extends AbstractMojo implements Parameters {
         }
     }
 
+    // writes only changed files; m2e build? => notify Eclipse about changed files
+    private void writeOutputFiles(Map<String, String> result) throws IOException {
+        List<File> writtenFiles = new OutputFileWriter(this, msg -> getLog().info(msg)).write(result);
+        if (buildContext != null) {
+            for (File file : writtenFiles)
+                buildContext.refresh(file);
+        }
+    }
+
+    private boolean isIncrementalBuild() {
+        return buildContext != null && buildContext.isIncremental();
+    }
+
+    /** HEAD, Git status and parameters the result depends on (waits for Git status) */
+    private List<Object> cacheKey(BuildNumberExtractor extractor) throws Exception {
+        String dirty = extractor.isGitStatusDirty() ? dirtyValue : null;
+        return Arrays.asList(extractor.getHeadSha1(), dirty, shortRevisionLength, gitDateFormat, buildDateFormat, dateFormatTimeZone,
+            countCommitsSinceInclusive, countCommitsSinceExclusive, countCommitsSinceDate, maxCommitsToCount, countCommitsInPath, firstParentOnly,
+            buildNumberFormat, extractSubmodules);
+    }
+
     // m2e build? => save extracted values to BuildContext
     private void saveResultToBuildContext(String paramsKey, List<Object> currentParams, String resultKey, Map<String, String> result) {
         if (buildContext != null) {
@@ -154,7 +209,7 @@ public class JGitBuildNumberMojo extends AbstractMojo implements Parameters {
     // m2e incremental build and input params (HEAD, etc.) not changed? => try to get previously extracted values from BuildContext
     // note: buildContext != null only in m2e builds in Eclipse
     private Map<String, String> getCachedResultFromBuildConext(String paramsKey, List<Object> currentParams, String resultKey) {
-        if (buildContext != null && buildContext.isIncremental()) {
+        if (isIncrementalBuild()) {
             if (verbose) getLog().info("m2e incremental build detected");
             // getLog().info("buildContext.getClass(): " + buildContext.getClass()); // org.eclipse.m2e.core.internal.embedder.EclipseBuildContext
             List<Object> cachedParams = (List<Object>) buildContext.getValue(paramsKey);
@@ -168,10 +223,16 @@ public class JGitBuildNumberMojo extends AbstractMojo implements Parameters {
         return null;
     }
 
+    /** @return the extracted properties (including e.g. `submodules.<path>.revision`), names without the namespace prefix; other properties
+     *         sharing the prefix (e.g. user-defined `git.remoteUrl` in the parent POM) are ignored */
     private Map<String, String> toMap(Properties props) {
+        String prefix = namespace + ".";
         Map<String, String> map = new TreeMap<>();
-        for (String propertyName : propertyNames)
-            map.put(propertyName, props.getProperty(namespace + "." + propertyName));
+        for (String prefixedName : props.stringPropertyNames()) {
+            if (!prefixedName.startsWith(prefix)) continue;
+            String name = prefixedName.substring(prefix.length());
+            if (propertyNames.contains(name) || name.startsWith("submodules.")) map.put(name, props.getProperty(prefixedName));
+        }
 
         return map;
     }
@@ -182,10 +243,7 @@ public class JGitBuildNumberMojo extends AbstractMojo implements Parameters {
     }
 
     private void setProperties(Properties source, Properties target) {
-        for (String propertyName : propertyNames) {
-            String prefixedName = namespace + "." + propertyName;
-            target.setProperty(prefixedName, source.getProperty(prefixedName));
-        }
+        setProperties(toMap(source), target);
     }
 
     private void fillPropsUnknown() {
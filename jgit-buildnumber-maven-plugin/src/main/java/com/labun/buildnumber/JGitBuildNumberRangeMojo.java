@@ -0,0 +1,61 @@
+package com.labun.buildnumber;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/** Computes the properties (particularly `buildNumber`) which every commit in a range would have had, see {@link BuildNumberBatchExtractor}.
+ *  Writes them as JSON Lines (one JSON object per commit, parents before children) to `rangeOutputFile`, or to the log.
+ *  Can be run without a project, e.g.:
+ *  <pre>mvn com.labun.buildnumber:jgit-buildnumber-maven-plugin:list-buildnumbers -Djgit.range=v1.0..HEAD</pre> */
+@Getter
+@Setter
+@Mojo(name = "list-buildnumbers", requiresProject = false, threadSafe = true)
+public class JGitBuildNumberRangeMojo extends JGitBuildNumberMojo {
+
+    /** `<from>..<to>` (commits reachable from `to` but not from `from`) or `<to>` (all commits reachable from `to`). */
+    @Parameter(property = "jgit.range", defaultValue = "HEAD")
+    private String range;
+
+    /** JSON Lines file to write the properties to. Default: not set (properties are written to the log). */
+    @Parameter(property = "jgit.rangeOutputFile")
+    private File rangeOutputFile;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        // set some parameters to Maven specific values
+        if (getRepositoryDirectory() == null) setRepositoryDirectory(getProject() != null ? getProject().getBasedir() : new File("."));
+
+        validateAndSetParameterValues();
+
+        if (getSkip()) {
+            getLog().info("Execution is skipped by configuration.");
+            return;
+        }
+
+        try (BuildNumberBatchExtractor extractor = new BuildNumberBatchExtractor(this, msg -> getLog().info(msg))) {
+            if (rangeOutputFile != null) {
+                if (rangeOutputFile.getAbsoluteFile().getParentFile() != null) Files.createDirectories(rangeOutputFile.getAbsoluteFile().getParentFile().toPath());
+                try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(rangeOutputFile.toPath(), StandardCharsets.UTF_8))) {
+                    extractor.extract(range, properties -> out.println(OutputFileWriter.jsonLine(properties)));
+                }
+                getLog().info("build numbers written to: " + rangeOutputFile);
+            } else {
+                extractor.extract(range, properties -> getLog().info(OutputFileWriter.jsonLine(properties)));
+            }
+        } catch (Exception e) {
+            String message = e.getMessage() != null ? e.getMessage() : /* e.g. NPE */ e.getClass().getSimpleName();
+            getLog().error(message);
+            throw new MojoFailureException(message, e);
+        }
+    }
+}